@@ -0,0 +1,70 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+/// This file requires Jbang to run it.
+//DEPS ai.timefold.solver:timefold-solver-core:1.16.0
+//SOURCES ../../dec-02-road-trip/java/Dec02Roadtrip.java
+//SOURCES ../../dec-03-task-assigning/java/Dec03TaskAssigning.java
+
+import ai.timefold.solver.core.api.score.Score;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Measures how the move evaluation speed of the bundled solvers scales with the number of threads.
+ * Every run solves for a fixed time, so the speeds are comparable.
+ * <p>
+ * Usage: {@code jbang ParallelScalingReport.java [seconds per run] [parallel-solvers|move-threads]}.
+ * The default varies the number of independent parallel solvers (Community Edition).
+ * Varying the move threads needs Timefold Solver Enterprise Edition on the classpath.
+ */
+public class ParallelScalingReport {
+
+    private static final List<Integer> THREAD_COUNTS = List.of(1, 2, 4, 8, 16);
+
+    public static void main(String... args) {
+        long secondsPerRun = args.length > 0 ? Long.parseLong(args[0]) : 10L;
+        String option = args.length > 1 ? args[1] : "parallel-solvers";
+        var roadTripPlan = Dec02Roadtrip.createPlanFromInput(Path.of("../../dec-02-road-trip/instance.txt"));
+        var taskAssigningPlan = Dec03TaskAssigning.createPlanFromInput(Path.of("../../dec-03-task-assigning/instance.txt"));
+
+        // Warm up the JIT, so the first row isn't penalized
+        warmUp(Dec02Roadtrip.createSolverConfig(), roadTripPlan, Dec02Roadtrip.RoadTripPlan::getScore, secondsPerRun);
+        warmUp(Dec03TaskAssigning.createSolverConfig(), taskAssigningPlan, Dec03TaskAssigning.TaskAssigningPlan::getScore,
+                secondsPerRun);
+
+        System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+        System.out.println();
+        System.out.println("| Solver | " + option + " | Moves/sec (total) | Moves/sec (per thread) | Best score |");
+        System.out.println("|--------|---|---|---|---|");
+        for (int threadCount : THREAD_COUNTS) {
+            report("Dec02Roadtrip", option, threadCount, secondsPerRun, Dec02Roadtrip.createSolverConfig(),
+                    roadTripPlan, Dec02Roadtrip.RoadTripPlan::getScore);
+        }
+        for (int threadCount : THREAD_COUNTS) {
+            report("Dec03TaskAssigning", option, threadCount, secondsPerRun, Dec03TaskAssigning.createSolverConfig(),
+                    taskAssigningPlan, Dec03TaskAssigning.TaskAssigningPlan::getScore);
+        }
+    }
+
+    private static <Solution_, Score_ extends Score<Score_>> void warmUp(SolverConfig solverConfig, Solution_ plan,
+            Function<Solution_, Score_> scoreFunction, long secondsPerRun) {
+        SolverConfig config = solverConfig.copyConfig()
+                .withTerminationConfig(new TerminationConfig().withSecondsSpentLimit(secondsPerRun));
+        SolverOptions.parse(new String[0], "").solve(config, plan, scoreFunction);
+    }
+
+    private static <Solution_, Score_ extends Score<Score_>> void report(String solverName, String option,
+            int threadCount, long secondsPerRun, SolverConfig solverConfig, Solution_ plan,
+            Function<Solution_, Score_> scoreFunction) {
+        SolverOptions options = SolverOptions.parse(new String[] { "--" + option + "=" + threadCount }, "");
+        SolverConfig config = solverConfig.copyConfig()
+                .withTerminationConfig(new TerminationConfig().withSecondsSpentLimit(secondsPerRun));
+
+        var result = options.solve(config, plan, scoreFunction);
+        System.out.printf("| %s | %d | %d | %d | %s |%n", solverName, threadCount, result.moveEvaluationSpeed(),
+                result.moveEvaluationSpeed() / threadCount, scoreFunction.apply(result.bestSolution()));
+    }
+}
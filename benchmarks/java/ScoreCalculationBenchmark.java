@@ -0,0 +1,104 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+/// This file requires Jbang to run it.
+//DEPS ai.timefold.solver:timefold-solver-core:1.16.0
+//DEPS org.openjdk.jmh:jmh-core:1.37
+//DEPS org.openjdk.jmh:jmh-generator-annprocess:1.37
+//SOURCES ScoreCalculationFixture.java
+//SOURCES ../../dec-02-road-trip/java/Dec02Roadtrip.java
+//SOURCES ../../dec-03-task-assigning/java/Dec03TaskAssigning.java
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Score calculation hot paths of Dec02Roadtrip and Dec03TaskAssigning, on the bundled instances.
+ * Runs with the GC profiler, so the allocation rate is reported next to the throughput.
+ * <p>
+ * JMH doesn't support benchmarks in the default package, while the solvers live there.
+ * So the benchmark only drives a {@link Fixture}, which is implemented next to the solver code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ScoreCalculationBenchmark {
+
+    private Fixture fixture;
+
+    public static void main(String... args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        fixture = (Fixture) Class.forName("ScoreCalculationFixture").getDeclaredConstructor().newInstance();
+        fixture.setUp();
+    }
+
+    /**
+     * {@code CostMap.calculateTotalDrivingTime} of a route through all locations.
+     */
+    @Benchmark
+    public long roadTripTotalDrivingTime() {
+        return fixture.calculateTotalDrivingTime();
+    }
+
+    /**
+     * {@code CostMatrixCalculator.completeGraph} of the bundled road network.
+     */
+    @Benchmark
+    public Object roadTripCompleteGraph() {
+        return fixture.completeGraph();
+    }
+
+    /**
+     * Full constraint stream score calculation of a route through all locations.
+     */
+    @Benchmark
+    public Object roadTripScore() {
+        return fixture.calculateRoadTripScore();
+    }
+
+    /**
+     * {@code Task.getCost} of every task of the bundled instance.
+     */
+    @Benchmark
+    public long taskAssigningCost() {
+        return fixture.calculateTaskCosts();
+    }
+
+    /**
+     * Full constraint stream score calculation of a feasible assignment.
+     */
+    @Benchmark
+    public Object taskAssigningScore() {
+        return fixture.calculateTaskAssigningScore();
+    }
+
+    public interface Fixture {
+
+        void setUp();
+
+        long calculateTotalDrivingTime();
+
+        Object completeGraph();
+
+        Object calculateRoadTripScore();
+
+        long calculateTaskCosts();
+
+        Object calculateTaskAssigningScore();
+    }
+}
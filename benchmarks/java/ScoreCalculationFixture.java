@@ -0,0 +1,77 @@
+import ai.timefold.solver.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftLongScore;
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.core.api.solver.SolutionManager;
+import ai.timefold.solver.core.api.solver.SolverFactory;
+import benchmarks.ScoreCalculationBenchmark;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Default package side of {@link ScoreCalculationBenchmark},
+ * with direct access to the {@link Dec02Roadtrip} and {@link Dec03TaskAssigning} domains.
+ */
+public class ScoreCalculationFixture implements ScoreCalculationBenchmark.Fixture {
+
+    private static final Path ROAD_TRIP_INSTANCE = Path.of("../../dec-02-road-trip/instance.txt");
+    private static final Path TASK_ASSIGNING_INSTANCE = Path.of("../../dec-03-task-assigning/instance.txt");
+
+    private Dec02Roadtrip.CostMap costMap;
+    private Dec02Roadtrip.RoadNetwork roadNetwork;
+    private Dec02Roadtrip.RoadTripPlan roadTripPlan;
+    private SolutionManager<Dec02Roadtrip.RoadTripPlan, HardMediumSoftLongScore> roadTripSolutionManager;
+
+    private Dec03TaskAssigning.TaskAssigningPlan taskAssigningPlan;
+    private SolutionManager<Dec03TaskAssigning.TaskAssigningPlan, HardSoftScore> taskAssigningSolutionManager;
+
+    @Override
+    public void setUp() {
+        roadTripPlan = Dec02Roadtrip.createPlanFromInput(ROAD_TRIP_INSTANCE);
+        costMap = new Dec02Roadtrip.CostMap(ROAD_TRIP_INSTANCE);
+        try (InstanceReader reader = InstanceReader.open(ROAD_TRIP_INSTANCE)) {
+            roadNetwork = Dec02Roadtrip.RoadNetwork.read(reader);
+        }
+        // Visit every location, in order
+        roadTripPlan.getTraveler().setVisits(new ArrayList<>(roadTripPlan.getVisits()));
+        roadTripSolutionManager = SolutionManager.create(SolverFactory.create(Dec02Roadtrip.createSolverConfig()));
+
+        taskAssigningPlan = Dec03TaskAssigning.createPlanFromInput(TASK_ASSIGNING_INSTANCE);
+        // Assign every task to the employee with the same id, which is feasible
+        List<Dec03TaskAssigning.Task> tasks = taskAssigningPlan.getTasks();
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).setEmployee(taskAssigningPlan.getEmployees().get(i));
+        }
+        taskAssigningSolutionManager = SolutionManager.create(SolverFactory.create(Dec03TaskAssigning.createSolverConfig()));
+    }
+
+    @Override
+    public long calculateTotalDrivingTime() {
+        return costMap.calculateTotalDrivingTime(roadTripPlan.getTraveler());
+    }
+
+    @Override
+    public Object completeGraph() {
+        return Dec02Roadtrip.CostMatrixCalculator.completeGraph(roadNetwork);
+    }
+
+    @Override
+    public Object calculateRoadTripScore() {
+        return roadTripSolutionManager.update(roadTripPlan);
+    }
+
+    @Override
+    public long calculateTaskCosts() {
+        List<Dec03TaskAssigning.Task> tasks = taskAssigningPlan.getTasks();
+        long totalCost = 0L;
+        for (int i = 0; i < tasks.size(); i++) {
+            totalCost += tasks.get(i).getCost();
+        }
+        return totalCost;
+    }
+
+    @Override
+    public Object calculateTaskAssigningScore() {
+        return taskAssigningSolutionManager.update(taskAssigningPlan);
+    }
+}
@@ -0,0 +1,167 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+/// This file requires Jbang to run it.
+//DEPS ai.timefold.solver:timefold-solver-core:1.16.0
+//DEPS ai.timefold.solver:timefold-solver-benchmark:1.16.0
+//SOURCES ../../dec-02-road-trip/java/Dec02Roadtrip.java
+//SOURCES ../../dec-03-task-assigning/java/Dec03TaskAssigning.java
+
+import ai.timefold.solver.benchmark.api.PlannerBenchmarkFactory;
+import ai.timefold.solver.benchmark.config.PlannerBenchmarkConfig;
+import ai.timefold.solver.benchmark.config.ProblemBenchmarksConfig;
+import ai.timefold.solver.benchmark.config.SolverBenchmarkConfig;
+import ai.timefold.solver.benchmark.config.statistic.ProblemStatisticType;
+import ai.timefold.solver.core.config.constructionheuristic.ConstructionHeuristicPhaseConfig;
+import ai.timefold.solver.core.config.constructionheuristic.ConstructionHeuristicType;
+import ai.timefold.solver.core.config.heuristic.selector.move.MoveSelectorConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.composite.UnionMoveSelectorConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.generic.ChangeMoveSelectorConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.generic.SwapMoveSelectorConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.generic.list.ListChangeMoveSelectorConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.generic.list.ListSwapMoveSelectorConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.generic.list.SubListChangeMoveSelectorConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.generic.list.kopt.KOptListMoveSelectorConfig;
+import ai.timefold.solver.core.config.localsearch.LocalSearchPhaseConfig;
+import ai.timefold.solver.core.config.localsearch.LocalSearchType;
+import ai.timefold.solver.core.config.localsearch.decider.acceptor.LocalSearchAcceptorConfig;
+import ai.timefold.solver.core.config.localsearch.decider.forager.LocalSearchForagerConfig;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Solves the instances of Dec02Roadtrip and Dec03TaskAssigning with several algorithm configurations,
+ * to pick the fastest converging one per problem instead of guessing.
+ * Every configuration solves every instance for the same time,
+ * recording the best score over time, the score calculation speed and the memory use.
+ * <p>
+ * Usage: {@code jbang SolverConfigurationBenchmark.java [seconds per run] [road-trip|task-assigning]}.
+ * The HTML report and the CSV file of every statistic are written to {@code local/benchmarks}.
+ */
+public class SolverConfigurationBenchmark {
+
+    private static final List<Path> ROAD_TRIP_INSTANCES = List.of(Path.of("../../dec-02-road-trip/instance.txt"));
+    private static final List<Path> TASK_ASSIGNING_INSTANCES = List.of(Path.of("../../dec-03-task-assigning/instance.txt"));
+
+    public static void main(String... args) {
+        long secondsPerRun = args.length > 0 ? Long.parseLong(args[0]) : 30L;
+        String family = args.length > 1 ? args[1] : "all";
+        if (family.equals("all") || family.equals("road-trip")) {
+            benchmark("road-trip", roadTripConfigs(), secondsPerRun,
+                    ROAD_TRIP_INSTANCES.stream().map(Dec02Roadtrip::createPlanFromInput).toArray());
+        }
+        if (family.equals("all") || family.equals("task-assigning")) {
+            benchmark("task-assigning", taskAssigningConfigs(), secondsPerRun,
+                    TASK_ASSIGNING_INSTANCES.stream().map(Dec03TaskAssigning::createPlanFromInput).toArray());
+        }
+    }
+
+    private static List<SolverBenchmarkConfig> roadTripConfigs() {
+        SolverConfig base = Dec02Roadtrip.createSolverConfig();
+        // A list variable doesn't support choosing the construction heuristic type, so only local search varies
+        return List.of(
+                solverBenchmark("Default", base),
+                solverBenchmark("Late acceptance", withPhases(base,
+                        new ConstructionHeuristicPhaseConfig(),
+                        lateAcceptance())),
+                solverBenchmark("Tabu search", withPhases(base,
+                        new ConstructionHeuristicPhaseConfig(),
+                        tabuSearch())),
+                solverBenchmark("Late acceptance, list change only", withPhases(base,
+                        new ConstructionHeuristicPhaseConfig(),
+                        lateAcceptance().withMoveSelectorConfig(new ListChangeMoveSelectorConfig()))),
+                solverBenchmark("Late acceptance, change + swap + sublist change", withPhases(base,
+                        new ConstructionHeuristicPhaseConfig(),
+                        lateAcceptance().withMoveSelectorConfig(union(new ListChangeMoveSelectorConfig(),
+                                new ListSwapMoveSelectorConfig(), new SubListChangeMoveSelectorConfig())))),
+                solverBenchmark("Late acceptance, change + k-opt", withPhases(base,
+                        new ConstructionHeuristicPhaseConfig(),
+                        lateAcceptance().withMoveSelectorConfig(union(new ListChangeMoveSelectorConfig(),
+                                new KOptListMoveSelectorConfig())))));
+    }
+
+    private static List<SolverBenchmarkConfig> taskAssigningConfigs() {
+        SolverConfig base = Dec03TaskAssigning.createSolverConfig();
+        return List.of(
+                solverBenchmark("Default", base),
+                solverBenchmark("First fit, late acceptance", withPhases(base,
+                        constructionHeuristic(ConstructionHeuristicType.FIRST_FIT),
+                        lateAcceptance())),
+                solverBenchmark("Cheapest insertion, late acceptance", withPhases(base,
+                        constructionHeuristic(ConstructionHeuristicType.CHEAPEST_INSERTION),
+                        lateAcceptance())),
+                solverBenchmark("First fit, tabu search", withPhases(base,
+                        constructionHeuristic(ConstructionHeuristicType.FIRST_FIT),
+                        tabuSearch())),
+                solverBenchmark("Late acceptance, change only", withPhases(base,
+                        constructionHeuristic(ConstructionHeuristicType.FIRST_FIT),
+                        lateAcceptance().withMoveSelectorConfig(new ChangeMoveSelectorConfig()))),
+                solverBenchmark("Late acceptance, swap only", withPhases(base,
+                        constructionHeuristic(ConstructionHeuristicType.FIRST_FIT),
+                        lateAcceptance().withMoveSelectorConfig(new SwapMoveSelectorConfig()))));
+    }
+
+    private static ConstructionHeuristicPhaseConfig constructionHeuristic(ConstructionHeuristicType type) {
+        return new ConstructionHeuristicPhaseConfig()
+                .withConstructionHeuristicType(type);
+    }
+
+    private static LocalSearchPhaseConfig lateAcceptance() {
+        return new LocalSearchPhaseConfig()
+                .withAcceptorConfig(new LocalSearchAcceptorConfig()
+                        .withLateAcceptanceSize(400))
+                .withForagerConfig(new LocalSearchForagerConfig()
+                        .withAcceptedCountLimit(1));
+    }
+
+    private static LocalSearchPhaseConfig tabuSearch() {
+        return new LocalSearchPhaseConfig()
+                .withLocalSearchType(LocalSearchType.TABU_SEARCH);
+    }
+
+    private static MoveSelectorConfig<?> union(MoveSelectorConfig<?>... moveSelectorConfigs) {
+        return new UnionMoveSelectorConfig()
+                .withMoveSelectors(moveSelectorConfigs);
+    }
+
+    private static SolverConfig withPhases(SolverConfig base, ConstructionHeuristicPhaseConfig constructionHeuristic,
+            LocalSearchPhaseConfig localSearch) {
+        return base.copyConfig()
+                .withPhases(constructionHeuristic, localSearch);
+    }
+
+    private static SolverBenchmarkConfig solverBenchmark(String name, SolverConfig solverConfig) {
+        return new SolverBenchmarkConfig()
+                .withName(name)
+                .withSolverConfig(solverConfig);
+    }
+
+    private static void benchmark(String family, List<SolverBenchmarkConfig> solverBenchmarkConfigs, long secondsPerRun,
+            Object... problems) {
+        List<SolverBenchmarkConfig> configs = new ArrayList<>(solverBenchmarkConfigs.size());
+        for (SolverBenchmarkConfig solverBenchmarkConfig : solverBenchmarkConfigs) {
+            // Every configuration gets the same time, instead of stopping when it stops improving
+            solverBenchmarkConfig.getSolverConfig()
+                    .setTerminationConfig(new TerminationConfig().withSecondsSpentLimit(secondsPerRun));
+            configs.add(solverBenchmarkConfig);
+        }
+        PlannerBenchmarkConfig benchmarkConfig = new PlannerBenchmarkConfig()
+                .withName(family)
+                .withBenchmarkDirectory(new File("local/benchmarks"))
+                .withWarmUpSecondsSpentLimit(secondsPerRun)
+                .withInheritedSolverBenchmarkConfig(new SolverBenchmarkConfig()
+                        .withProblemBenchmarksConfig(new ProblemBenchmarksConfig()
+                                .withProblemStatisticTypes(Arrays.asList(ProblemStatisticType.BEST_SCORE,
+                                        ProblemStatisticType.SCORE_CALCULATION_SPEED,
+                                        ProblemStatisticType.MEMORY_USE))))
+                .withSolverBenchmarkConfigs(configs);
+        File benchmarkDirectory = PlannerBenchmarkFactory.create(benchmarkConfig)
+                .buildPlannerBenchmark(problems)
+                .benchmark();
+        System.out.println("Report of " + family + ": " + new File(benchmarkDirectory, "index.html").getPath());
+    }
+}
@@ -0,0 +1,91 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+/// This file requires Jbang to run it.
+//DEPS ai.timefold.solver:timefold-solver-core:1.16.0
+//DEPS org.openjdk.jmh:jmh-core:1.37
+//DEPS org.openjdk.jmh:jmh-generator-annprocess:1.37
+//SOURCES TaskAssigningFixture.java
+//SOURCES ../../dec-03-task-assigning/java/Dec03TaskAssigning.java
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares both formulations of the "single task per employee" constraint of Dec03TaskAssigning.
+ * The instances are random, with tasks piled onto a few employees, like early on in construction.
+ * <p>
+ * JMH doesn't support benchmarks in the default package, while the solvers live there.
+ * So the benchmark only drives a {@link Fixture}, which is implemented next to the solver code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class TaskAssigningBenchmark {
+
+    /**
+     * Moves evaluated per invocation of {@link #evaluateMoves()}.
+     */
+    public static final int MOVE_COUNT = 10_000;
+
+    @Param({"1000", "10000"})
+    public int taskCount;
+
+    @Param({"100"})
+    public int tasksPerEmployee;
+
+    @Param({"GROUPED", "PAIRWISE"})
+    public Formulation formulation;
+
+    private Fixture fixture;
+
+    public static void main(String... args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        fixture = (Fixture) Class.forName("TaskAssigningFixture").getDeclaredConstructor().newInstance();
+        fixture.setUp(taskCount, tasksPerEmployee, formulation);
+    }
+
+    /**
+     * Calculates the score of the whole crowded plan from scratch.
+     */
+    @Benchmark
+    public Object calculateScore() {
+        return fixture.calculateScore();
+    }
+
+    /**
+     * Runs local search from the crowded plan for a fixed number of moves, so it measures incremental score calculation.
+     */
+    @Benchmark
+    @OperationsPerInvocation(MOVE_COUNT)
+    public Object evaluateMoves() {
+        return fixture.evaluateMoves();
+    }
+
+    public enum Formulation {
+        /**
+         * {@code groupBy(employee, count())}, penalizing the excess tasks.
+         */
+        GROUPED,
+        /**
+         * {@code forEachUniquePair(Task.class, equal(Task::getEmployee))}, penalizing every pair.
+         */
+        PAIRWISE
+    }
+
+    public interface Fixture {
+
+        void setUp(int taskCount, int tasksPerEmployee, Formulation formulation);
+
+        Object calculateScore();
+
+        Object evaluateMoves();
+    }
+}
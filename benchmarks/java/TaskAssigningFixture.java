@@ -0,0 +1,85 @@
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.core.api.score.stream.Constraint;
+import ai.timefold.solver.core.api.score.stream.ConstraintFactory;
+import ai.timefold.solver.core.api.solver.SolutionManager;
+import ai.timefold.solver.core.api.solver.SolverFactory;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+import benchmarks.TaskAssigningBenchmark;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static ai.timefold.solver.core.api.score.stream.Joiners.equal;
+
+/**
+ * Default package side of {@link TaskAssigningBenchmark}, with direct access to the {@link Dec03TaskAssigning} domain.
+ */
+public class TaskAssigningFixture implements TaskAssigningBenchmark.Fixture {
+
+    private SolverFactory<Dec03TaskAssigning.TaskAssigningPlan> solverFactory;
+    private SolutionManager<Dec03TaskAssigning.TaskAssigningPlan, HardSoftScore> solutionManager;
+    private Dec03TaskAssigning.TaskAssigningPlan plan;
+
+    @Override
+    public void setUp(int taskCount, int tasksPerEmployee, TaskAssigningBenchmark.Formulation formulation) {
+        var constraintProviderClass = switch (formulation) {
+            case GROUPED -> Dec03TaskAssigning.TaskAssigningConstraintProvider.class;
+            case PAIRWISE -> PairwiseTaskAssigningConstraintProvider.class;
+        };
+        solverFactory = SolverFactory.create(new SolverConfig()
+                .withSolutionClass(Dec03TaskAssigning.TaskAssigningPlan.class)
+                .withEntityClasses(Dec03TaskAssigning.Task.class)
+                .withConstraintProviderClass(constraintProviderClass)
+                .withTerminationConfig(new TerminationConfig()
+                        .withMoveCountLimit((long) TaskAssigningBenchmark.MOVE_COUNT)));
+        solutionManager = SolutionManager.create(solverFactory);
+        plan = createCrowdedPlan(taskCount, tasksPerEmployee);
+    }
+
+    @Override
+    public Object calculateScore() {
+        return solutionManager.update(plan);
+    }
+
+    @Override
+    public Object evaluateMoves() {
+        // The solver works on a clone, so every invocation starts from the same crowded plan
+        return solverFactory.buildSolver().solve(plan);
+    }
+
+    /**
+     * Random costs, with every task already assigned to one of {@code taskCount / tasksPerEmployee} employees.
+     */
+    static Dec03TaskAssigning.TaskAssigningPlan createCrowdedPlan(int taskCount, int tasksPerEmployee) {
+        Random random = new Random(37);
+        int[][] costs = new int[taskCount][taskCount];
+        for (int[] row : costs) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = 1 + random.nextInt(100);
+            }
+        }
+        List<Dec03TaskAssigning.Employee> employees = IntStream.range(0, taskCount)
+                .mapToObj(Dec03TaskAssigning.Employee::new)
+                .toList();
+        var plan = new Dec03TaskAssigning.TaskAssigningPlan(costs, employees);
+        int crowdedEmployeeCount = Math.max(1, taskCount / tasksPerEmployee);
+        for (int i = 0; i < taskCount; i++) {
+            plan.getTasks().get(i).setEmployee(employees.get(i % crowdedEmployeeCount));
+        }
+        return plan;
+    }
+
+    /**
+     * The original formulation, which matches every pair of tasks sharing an employee.
+     */
+    public static class PairwiseTaskAssigningConstraintProvider extends Dec03TaskAssigning.TaskAssigningConstraintProvider {
+
+        @Override
+        protected Constraint employeesShouldOnlyHaveASingleTask(ConstraintFactory constraintFactory) {
+            return constraintFactory.forEachUniquePair(Dec03TaskAssigning.Task.class, equal(Dec03TaskAssigning.Task::getEmployee))
+                    .penalize(HardSoftScore.ONE_HARD)
+                    .asConstraint("No double assigment for employees");
+        }
+    }
+}
@@ -0,0 +1,442 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+/// This file requires Jbang to run it.
+//DEPS ai.timefold.solver:timefold-solver-core:1.16.0
+//SOURCES ../../shared/java/FacilityLocationEngine.java
+//SOURCES ../../shared/java/InstanceReader.java
+//SOURCES ../../shared/java/SolverOptions.java
+
+import ai.timefold.solver.core.api.domain.entity.PlanningEntity;
+import ai.timefold.solver.core.api.domain.lookup.PlanningId;
+import ai.timefold.solver.core.api.domain.solution.PlanningEntityCollectionProperty;
+import ai.timefold.solver.core.api.domain.solution.PlanningScore;
+import ai.timefold.solver.core.api.domain.solution.PlanningSolution;
+import ai.timefold.solver.core.api.domain.valuerange.ValueRangeProvider;
+import ai.timefold.solver.core.api.domain.variable.PlanningVariable;
+import ai.timefold.solver.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
+import ai.timefold.solver.core.api.score.calculator.IncrementalScoreCalculator;
+import ai.timefold.solver.core.config.constructionheuristic.ConstructionHeuristicPhaseConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.composite.UnionMoveSelectorConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.generic.ChangeMoveSelectorConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.generic.SwapMoveSelectorConfig;
+import ai.timefold.solver.core.config.localsearch.LocalSearchPhaseConfig;
+import ai.timefold.solver.core.config.score.director.ScoreDirectorFactoryConfig;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+import org.jspecify.annotations.NonNull;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class Dec05FacilityLocations {
+
+    public static void main(String... args) {
+        // The instance can be passed as first argument, defaults to the one of this challenge
+        SolverOptions options = SolverOptions.parse(args, "../instance.txt");
+        WarehouseInstance instance = WarehouseInstance.read(options.getInstanceFile());
+
+        var result = options.solve(createSolverConfig(), createPlan(instance), WarehousePlan::getScore);
+        WarehousePlan solution = result.bestSolution();
+        System.out.println("Score: " + solution.getScore());
+        System.out.printf("Cost: %.3f%n", -solution.getScore().softScore() / 100_000.0);
+        List<Integer> openWarehouses = solution.getWarehouses().stream()
+                .filter(warehouse -> Boolean.TRUE.equals(warehouse.getOpen()))
+                .map(warehouse -> warehouse.getId() + 1)
+                .toList();
+        // The warehouses are numbered from 1, as in the instance
+        System.out.println("Open warehouses: " + openWarehouses);
+        System.out.println("Move evaluation speed: " + result.moveEvaluationSpeed() + "/sec");
+    }
+
+    public static SolverConfig createSolverConfig() {
+        return new SolverConfig()
+                .withSolutionClass(WarehousePlan.class)
+                .withEntityClasses(Warehouse.class)
+                .withScoreDirectorFactory(new ScoreDirectorFactoryConfig()
+                        .withIncrementalScoreCalculatorClass(WarehouseScoreCalculator.class))
+                // Stop the solver if no better solution is found for 5 seconds.
+                .withTerminationConfig(new TerminationConfig()
+                        .withUnimprovedSecondsSpentLimit(5L))
+                // Open or close one warehouse, or swap an open warehouse with a closed one
+                .withPhases(new ConstructionHeuristicPhaseConfig(),
+                        new LocalSearchPhaseConfig()
+                                .withMoveSelectorConfig(new UnionMoveSelectorConfig()
+                                        .withMoveSelectors(new ChangeMoveSelectorConfig(),
+                                                new SwapMoveSelectorConfig())));
+    }
+
+    public static WarehousePlan createPlan(WarehouseInstance instance) {
+        var warehouses = IntStream.range(0, instance.warehouseCount()).mapToObj(Warehouse::new).toList();
+        return new WarehousePlan(instance, warehouses);
+    }
+
+    /**
+     * The capacity and fixed cost per warehouse, the demand per client
+     * and the cost to serve the whole demand of a client from a warehouse, as a flat matrix:
+     * {@code allocationCosts[client * warehouseCount + warehouse]}.
+     * The costs have 5 decimals, they are kept in hundred-thousandths, so the score stays a long.
+     * The warehouses are ranked by allocation cost per client once, for the engine of every score calculator.
+     */
+    public record WarehouseInstance(int[] capacities, long[] fixedCosts, int[] demands, long[] allocationCosts,
+            FacilityLocationEngine.Ranking ranking) {
+
+        /**
+         * Reads the number of warehouses and clients, the capacity and fixed cost per warehouse,
+         * then per client its demand and the cost to serve it from every warehouse.
+         */
+        public static WarehouseInstance read(Path instanceFile) {
+            try (InstanceReader reader = InstanceReader.open(instanceFile)) {
+                int warehouseCount = reader.nextInt();
+                int clientCount = reader.nextInt();
+                int[] capacities = new int[warehouseCount];
+                long[] fixedCosts = new long[warehouseCount];
+                for (int warehouse = 0; warehouse < warehouseCount; warehouse++) {
+                    capacities[warehouse] = reader.nextInt();
+                    fixedCosts[warehouse] = Math.round(100_000.0 * reader.nextDouble());
+                }
+                int[] demands = new int[clientCount];
+                long[] allocationCosts = new long[clientCount * warehouseCount];
+                for (int client = 0; client < clientCount; client++) {
+                    demands[client] = reader.nextInt();
+                    for (int warehouse = 0; warehouse < warehouseCount; warehouse++) {
+                        allocationCosts[client * warehouseCount + warehouse] = Math.round(100_000.0 * reader.nextDouble());
+                    }
+                }
+                return new WarehouseInstance(capacities, fixedCosts, demands, allocationCosts,
+                        new FacilityLocationEngine.Ranking(clientCount, warehouseCount, allocationCosts));
+            }
+        }
+
+        public int warehouseCount() {
+            return capacities.length;
+        }
+
+        public int clientCount() {
+            return demands.length;
+        }
+
+        public long totalDemand() {
+            return Arrays.stream(demands).asLongStream().sum();
+        }
+
+        /**
+         * @return a new engine without open warehouses, the nearest warehouse of a client is the cheapest one
+         */
+        public FacilityLocationEngine createEngine() {
+            return new FacilityLocationEngine(ranking);
+        }
+    }
+
+    @PlanningEntity
+    public static class Warehouse {
+        @PlanningId
+        private Integer id;
+        @PlanningVariable
+        private Boolean open;
+
+        public Warehouse() {
+        }
+
+        public Warehouse(int id) {
+            this.id = id;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public Boolean getOpen() {
+            return open;
+        }
+
+        public void setOpen(Boolean open) {
+            this.open = open;
+        }
+
+        @Override
+        public String toString() {
+            return "Warehouse " + (id + 1);
+        }
+    }
+
+    @PlanningSolution
+    public static class WarehousePlan {
+        /**
+         * The capacities, demands and costs, the score calculator builds its engine from them.
+         */
+        private WarehouseInstance instance;
+
+        @PlanningEntityCollectionProperty
+        private List<Warehouse> warehouses;
+
+        @ValueRangeProvider
+        private List<Boolean> openValues = List.of(Boolean.FALSE, Boolean.TRUE);
+
+        @PlanningScore
+        private HardSoftLongScore score;
+
+        public WarehousePlan() {
+        }
+
+        public WarehousePlan(WarehouseInstance instance, List<Warehouse> warehouses) {
+            this.instance = instance;
+            this.warehouses = warehouses;
+        }
+
+        public WarehouseInstance getInstance() {
+            return instance;
+        }
+
+        public List<Warehouse> getWarehouses() {
+            return warehouses;
+        }
+
+        public HardSoftLongScore getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * Keeps the open warehouses in a {@link FacilityLocationEngine}, which knows the cheapest open warehouse of every client.
+     * If every client fits in its cheapest open warehouse, that's the cheapest allocation.
+     * Otherwise, the clients are split over the open warehouses by a {@link TransportationProblem}.
+     * <ul>
+     *     <li>Hard: the open warehouses can handle the total demand, per unit of demand short.</li>
+     *     <li>Soft: minimize the fixed costs of the open warehouses plus the cost of the allocation.</li>
+     * </ul>
+     */
+    public static class WarehouseScoreCalculator implements IncrementalScoreCalculator<WarehousePlan, HardSoftLongScore> {
+        private WarehouseInstance instance;
+        private FacilityLocationEngine engine;
+        private TransportationProblem transportationProblem;
+        private long totalDemand;
+        private long openCapacity;
+        private long fixedCost;
+        private long[] loads;
+
+        @Override
+        public void resetWorkingSolution(@NonNull WarehousePlan workingSolution) {
+            instance = workingSolution.getInstance();
+            engine = instance.createEngine();
+            transportationProblem = new TransportationProblem(instance);
+            totalDemand = instance.totalDemand();
+            openCapacity = 0L;
+            fixedCost = 0L;
+            loads = new long[instance.warehouseCount()];
+            for (Warehouse warehouse : workingSolution.getWarehouses()) {
+                insert(warehouse);
+            }
+        }
+
+        @Override
+        public void beforeEntityAdded(@NonNull Object entity) {
+        }
+
+        @Override
+        public void afterEntityAdded(@NonNull Object entity) {
+            insert((Warehouse) entity);
+        }
+
+        @Override
+        public void beforeVariableChanged(@NonNull Object entity, @NonNull String variableName) {
+            retract((Warehouse) entity);
+        }
+
+        @Override
+        public void afterVariableChanged(@NonNull Object entity, @NonNull String variableName) {
+            insert((Warehouse) entity);
+        }
+
+        @Override
+        public void beforeEntityRemoved(@NonNull Object entity) {
+            retract((Warehouse) entity);
+        }
+
+        @Override
+        public void afterEntityRemoved(@NonNull Object entity) {
+        }
+
+        private void insert(Warehouse warehouse) {
+            if (!Boolean.TRUE.equals(warehouse.getOpen())) {
+                return;
+            }
+            int id = warehouse.getId();
+            engine.open(id);
+            openCapacity += instance.capacities()[id];
+            fixedCost += instance.fixedCosts()[id];
+        }
+
+        private void retract(Warehouse warehouse) {
+            if (!Boolean.TRUE.equals(warehouse.getOpen())) {
+                return;
+            }
+            int id = warehouse.getId();
+            engine.close(id);
+            openCapacity -= instance.capacities()[id];
+            fixedCost -= instance.fixedCosts()[id];
+        }
+
+        @Override
+        public @NonNull HardSoftLongScore calculateScore() {
+            if (openCapacity < totalDemand) {
+                // The cheapest open warehouse of every client, regardless of the capacities, leads the way
+                return HardSoftLongScore.of(openCapacity - totalDemand, -fixedCost - engine.totalCost());
+            }
+            return HardSoftLongScore.of(0L, -fixedCost - allocationCost());
+        }
+
+        private long allocationCost() {
+            Arrays.fill(loads, 0L);
+            boolean fits = true;
+            for (int client = 0; client < instance.clientCount() && fits; client++) {
+                int warehouse = engine.nearest(client);
+                loads[warehouse] += instance.demands()[client];
+                fits = loads[warehouse] <= instance.capacities()[warehouse];
+            }
+            if (fits) {
+                return engine.totalCost();
+            }
+            boolean[] open = new boolean[instance.warehouseCount()];
+            for (int warehouse = 0; warehouse < open.length; warehouse++) {
+                open[warehouse] = engine.isOpen(warehouse);
+            }
+            return transportationProblem.solve(open);
+        }
+    }
+
+    /**
+     * Splits the demand of the clients over the open warehouses at the lowest cost, within their capacities.
+     * A min cost flow from the warehouses to the clients, by successive shortest paths:
+     * every unit of demand costs the allocation cost of the client divided by its demand.
+     * The network is built once, every call only resets the flow and which warehouses are open.
+     */
+    public static final class TransportationProblem {
+        private static final double EPSILON = 1e-9;
+
+        private final WarehouseInstance instance;
+        private final int source;
+        private final int sink;
+        // The edges in flat arrays, every edge is followed by its reverse edge
+        private final int[] edgeHeads;
+        private final int[] edgeTargets;
+        private final int[] nextEdges;
+        private final long[] edgeCapacities;
+        private final long[] residuals;
+        private final double[] edgeCosts;
+        private int edgeCount;
+
+        private final double[] distances;
+        private final int[] previousEdges;
+        private final boolean[] queued;
+        private final int[] queue;
+
+        public TransportationProblem(WarehouseInstance instance) {
+            this.instance = instance;
+            int warehouseCount = instance.warehouseCount();
+            int clientCount = instance.clientCount();
+            int nodeCount = warehouseCount + clientCount + 2;
+            source = nodeCount - 2;
+            sink = nodeCount - 1;
+            int maxEdgeCount = 2 * (warehouseCount + warehouseCount * clientCount + clientCount);
+            edgeHeads = new int[nodeCount];
+            Arrays.fill(edgeHeads, -1);
+            edgeTargets = new int[maxEdgeCount];
+            nextEdges = new int[maxEdgeCount];
+            edgeCapacities = new long[maxEdgeCount];
+            residuals = new long[maxEdgeCount];
+            edgeCosts = new double[maxEdgeCount];
+            for (int warehouse = 0; warehouse < warehouseCount; warehouse++) {
+                addEdge(source, warehouse, instance.capacities()[warehouse], 0.0);
+            }
+            for (int client = 0; client < clientCount; client++) {
+                int demand = instance.demands()[client];
+                for (int warehouse = 0; warehouse < warehouseCount; warehouse++) {
+                    double unitCost = (double) instance.allocationCosts()[client * warehouseCount + warehouse] / demand;
+                    addEdge(warehouse, warehouseCount + client, demand, unitCost);
+                }
+                addEdge(warehouseCount + client, sink, demand, 0.0);
+            }
+            distances = new double[nodeCount];
+            previousEdges = new int[nodeCount];
+            queued = new boolean[nodeCount];
+            queue = new int[nodeCount];
+        }
+
+        private void addEdge(int from, int to, long capacity, double cost) {
+            for (int i = 0; i < 2; i++) {
+                edgeTargets[edgeCount] = i == 0 ? to : from;
+                edgeCapacities[edgeCount] = i == 0 ? capacity : 0L;
+                edgeCosts[edgeCount] = i == 0 ? cost : -cost;
+                int tail = i == 0 ? from : to;
+                nextEdges[edgeCount] = edgeHeads[tail];
+                edgeHeads[tail] = edgeCount++;
+            }
+        }
+
+        /**
+         * @param open per warehouse, their capacity must cover the total demand
+         * @return the lowest allocation cost, in hundred-thousandths
+         */
+        public long solve(boolean[] open) {
+            System.arraycopy(edgeCapacities, 0, residuals, 0, edgeCount);
+            // The edges from the source to the warehouses come first
+            for (int warehouse = 0; warehouse < open.length; warehouse++) {
+                if (!open[warehouse]) {
+                    residuals[2 * warehouse] = 0L;
+                }
+            }
+            long remainingDemand = instance.totalDemand();
+            double cost = 0.0;
+            while (remainingDemand > 0) {
+                if (!findShortestPath()) {
+                    throw new IllegalStateException("The open warehouses can't handle the remaining demand ("
+                            + remainingDemand + ").");
+                }
+                long amount = remainingDemand;
+                for (int node = sink; node != source; node = edgeTargets[previousEdges[node] ^ 1]) {
+                    amount = Math.min(amount, residuals[previousEdges[node]]);
+                }
+                for (int node = sink; node != source; node = edgeTargets[previousEdges[node] ^ 1]) {
+                    residuals[previousEdges[node]] -= amount;
+                    residuals[previousEdges[node] ^ 1] += amount;
+                }
+                cost += amount * distances[sink];
+                remainingDemand -= amount;
+            }
+            return Math.round(cost);
+        }
+
+        /**
+         * Bellman-Ford with a queue, the reverse edges have negative costs.
+         *
+         * @return true if the sink can be reached
+         */
+        private boolean findShortestPath() {
+            Arrays.fill(distances, Double.POSITIVE_INFINITY);
+            distances[source] = 0.0;
+            int head = 0;
+            int size = 0;
+            queue[(head + size++) % queue.length] = source;
+            queued[source] = true;
+            while (size > 0) {
+                int node = queue[head];
+                head = (head + 1) % queue.length;
+                size--;
+                queued[node] = false;
+                for (int edge = edgeHeads[node]; edge >= 0; edge = nextEdges[edge]) {
+                    int target = edgeTargets[edge];
+                    if (residuals[edge] > 0 && distances[node] + edgeCosts[edge] < distances[target] - EPSILON) {
+                        distances[target] = distances[node] + edgeCosts[edge];
+                        previousEdges[target] = edge;
+                        if (!queued[target]) {
+                            queued[target] = true;
+                            queue[(head + size++) % queue.length] = target;
+                        }
+                    }
+                }
+            }
+            return distances[sink] < Double.POSITIVE_INFINITY;
+        }
+    }
+}
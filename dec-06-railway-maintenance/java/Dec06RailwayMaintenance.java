@@ -0,0 +1,654 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+/// This file requires Jbang to run it.
+//DEPS ai.timefold.solver:timefold-solver-core:1.16.0
+//SOURCES ../../shared/java/InstanceReader.java
+//SOURCES ../../shared/java/SolverOptions.java
+
+import ai.timefold.solver.core.api.domain.entity.PlanningEntity;
+import ai.timefold.solver.core.api.domain.lookup.PlanningId;
+import ai.timefold.solver.core.api.domain.solution.PlanningEntityCollectionProperty;
+import ai.timefold.solver.core.api.domain.solution.PlanningScore;
+import ai.timefold.solver.core.api.domain.solution.PlanningSolution;
+import ai.timefold.solver.core.api.domain.valuerange.ValueRangeProvider;
+import ai.timefold.solver.core.api.domain.variable.PlanningVariable;
+import ai.timefold.solver.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
+import ai.timefold.solver.core.api.score.calculator.IncrementalScoreCalculator;
+import ai.timefold.solver.core.api.score.director.ScoreDirector;
+import ai.timefold.solver.core.config.heuristic.selector.move.composite.UnionMoveSelectorConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.factory.MoveIteratorFactoryConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.generic.ChangeMoveSelectorConfig;
+import ai.timefold.solver.core.config.localsearch.LocalSearchPhaseConfig;
+import ai.timefold.solver.core.config.score.director.ScoreDirectorFactoryConfig;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+import ai.timefold.solver.core.impl.heuristic.move.AbstractMove;
+import ai.timefold.solver.core.impl.heuristic.selector.move.factory.MoveIteratorFactory;
+import org.jspecify.annotations.NonNull;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class Dec06RailwayMaintenance {
+
+    public static void main(String... args) {
+        // The instance can be passed as first argument, defaults to the one of this challenge
+        SolverOptions options = SolverOptions.parse(args, "../instance.txt");
+        RailwayMaintenancePlan plan = createPlanFromInput(options.getInstanceFile());
+        GreedyCover.apply(plan);
+        System.out.println("Greedy cost: " + plan.calculateCost());
+
+        var result = options.solve(createSolverConfig(), plan, RailwayMaintenancePlan::getScore);
+        RailwayMaintenancePlan solution = result.bestSolution();
+        System.out.println("Score: " + solution.getScore());
+        List<Integer> selected = solution.getSubsets().stream()
+                .filter(Subset::isSelected)
+                .map(subset -> subset.getId() + 1)
+                .toList();
+        System.out.println("Selected subsets (" + selected.size() + ", numbered by line): " + selected);
+        System.out.println("Move evaluation speed: " + result.moveEvaluationSpeed() + "/sec");
+    }
+
+    public static SolverConfig createSolverConfig() {
+        return new SolverConfig()
+                .withSolutionClass(RailwayMaintenancePlan.class)
+                .withEntityClasses(Subset.class)
+                .withScoreDirectorFactory(new ScoreDirectorFactoryConfig()
+                        .withIncrementalScoreCalculatorClass(CoverageScoreCalculator.class))
+                // Stop the solver if no better solution is found for 3 seconds.
+                .withTerminationConfig(new TerminationConfig()
+                        .withUnimprovedSecondsSpentLimit(3L))
+                // The greedy cover initializes every subset, so only local search is needed
+                .withPhases(new LocalSearchPhaseConfig()
+                        .withMoveSelectorConfig(new UnionMoveSelectorConfig()
+                                .withMoveSelectors(new ChangeMoveSelectorConfig(),
+                                        new MoveIteratorFactoryConfig()
+                                                .withMoveIteratorFactoryClass(ReplaceSubsetMoveIteratorFactory.class))));
+    }
+
+    /**
+     * Reads {@code <segment count> <subset count>}, then a line per subset: {@code <cost> <size> <segment>...}.
+     * The subsets go straight into the flat arrays of a {@link SubsetTable}, without any object per line.
+     */
+    public static RailwayMaintenancePlan createPlanFromInput(Path instanceFile) {
+        try (InstanceReader reader = InstanceReader.open(instanceFile)) {
+            int segmentCount = reader.nextInt();
+            int subsetCount = reader.nextInt();
+            int[] costs = new int[subsetCount];
+            int[] offsets = new int[subsetCount + 1];
+            int[] segments = new int[subsetCount * 8];
+            for (int subset = 0; subset < subsetCount; subset++) {
+                costs[subset] = reader.nextInt();
+                int size = reader.nextInt();
+                int offset = offsets[subset];
+                if (offset + size > segments.length) {
+                    segments = Arrays.copyOf(segments, Math.max(offset + size, segments.length * 2));
+                }
+                for (int i = 0; i < size; i++) {
+                    int segment = reader.nextInt();
+                    if (segment < 1 || segment > segmentCount) {
+                        throw new IllegalStateException("Segment (" + segment + ") on line " + reader.getLineNumber()
+                                + " isn't between 1 and " + segmentCount + ".");
+                    }
+                    segments[offset + i] = segment - 1;
+                }
+                offsets[subset + 1] = offset + size;
+            }
+            SubsetTable table = new SubsetTable(segmentCount, costs, offsets,
+                    Arrays.copyOf(segments, offsets[subsetCount]));
+            return new RailwayMaintenancePlan(table);
+        }
+    }
+
+    /**
+     * All subsets in compressed sparse row form: the segments of subset {@code s}
+     * are {@code segments[offsets[s]]} up to (excluding) {@code segments[offsets[s + 1]]}.
+     * The transposed index lists the subsets covering every segment the same way.
+     * Segments are numbered from 0 here, the instance numbers them from 1.
+     */
+    public static final class SubsetTable {
+        private final int segmentCount;
+        private final int[] costs;
+        private final int[] offsets;
+        private final int[] segments;
+        private final int[] coveringOffsets;
+        private final int[] coveringSubsets;
+
+        public SubsetTable(int segmentCount, int[] costs, int[] offsets, int[] segments) {
+            this.segmentCount = segmentCount;
+            this.costs = costs;
+            this.offsets = offsets;
+            this.segments = segments;
+            // Counting pass, then filling pass, so the index is built without any intermediate lists
+            coveringOffsets = new int[segmentCount + 1];
+            for (int segment : segments) {
+                coveringOffsets[segment + 1]++;
+            }
+            for (int segment = 0; segment < segmentCount; segment++) {
+                coveringOffsets[segment + 1] += coveringOffsets[segment];
+            }
+            coveringSubsets = new int[segments.length];
+            int[] next = Arrays.copyOf(coveringOffsets, segmentCount);
+            for (int subset = 0; subset < costs.length; subset++) {
+                for (int i = offsets[subset]; i < offsets[subset + 1]; i++) {
+                    coveringSubsets[next[segments[i]]++] = subset;
+                }
+            }
+            for (int segment = 0; segment < segmentCount; segment++) {
+                if (coveringOffsets[segment] == coveringOffsets[segment + 1]) {
+                    throw new IllegalStateException("Segment (" + (segment + 1) + ") isn't covered by any subset.");
+                }
+            }
+        }
+
+        public int getSegmentCount() {
+            return segmentCount;
+        }
+
+        public int getSubsetCount() {
+            return costs.length;
+        }
+
+        public int getCost(int subset) {
+            return costs[subset];
+        }
+
+        public int getStart(int subset) {
+            return offsets[subset];
+        }
+
+        public int getEnd(int subset) {
+            return offsets[subset + 1];
+        }
+
+        /**
+         * @param index between {@link #getStart(int)} and {@link #getEnd(int)} of a subset
+         */
+        public int getSegment(int index) {
+            return segments[index];
+        }
+
+        public int getCoveringStart(int segment) {
+            return coveringOffsets[segment];
+        }
+
+        public int getCoveringEnd(int segment) {
+            return coveringOffsets[segment + 1];
+        }
+
+        /**
+         * @param index between {@link #getCoveringStart(int)} and {@link #getCoveringEnd(int)} of a segment
+         */
+        public int getCoveringSubset(int index) {
+            return coveringSubsets[index];
+        }
+    }
+
+    @PlanningEntity
+    public static class Subset {
+        @PlanningId
+        private Integer id;
+        @PlanningVariable
+        private Boolean selected;
+
+        public Subset() {
+        }
+
+        public Subset(int id) {
+            this.id = id;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public boolean isSelected() {
+            return Boolean.TRUE.equals(selected);
+        }
+
+        public Boolean getSelected() {
+            return selected;
+        }
+
+        public void setSelected(Boolean selected) {
+            this.selected = selected;
+        }
+
+        @Override
+        public String toString() {
+            return "Subset " + id;
+        }
+    }
+
+    @PlanningSolution
+    public static class RailwayMaintenancePlan {
+        /**
+         * The subsets of the instance, the entities only add whether they are selected.
+         */
+        private SubsetTable table;
+
+        @PlanningEntityCollectionProperty
+        private List<Subset> subsets;
+
+        @ValueRangeProvider
+        private List<Boolean> selectedRange = List.of(Boolean.FALSE, Boolean.TRUE);
+
+        @PlanningScore
+        private HardSoftLongScore score;
+
+        public RailwayMaintenancePlan() {
+        }
+
+        public RailwayMaintenancePlan(SubsetTable table) {
+            this.table = table;
+            this.subsets = new ArrayList<>(table.getSubsetCount());
+            for (int subset = 0; subset < table.getSubsetCount(); subset++) {
+                subsets.add(new Subset(subset));
+            }
+        }
+
+        public SubsetTable getTable() {
+            return table;
+        }
+
+        public List<Subset> getSubsets() {
+            return subsets;
+        }
+
+        public HardSoftLongScore getScore() {
+            return score;
+        }
+
+        public long calculateCost() {
+            long cost = 0L;
+            for (Subset subset : subsets) {
+                if (subset.isSelected()) {
+                    cost += table.getCost(subset.getId());
+                }
+            }
+            return cost;
+        }
+    }
+
+    /**
+     * Keeps the number of selected subsets covering every segment in a primitive array.
+     * Selecting or deselecting a subset only touches its own segments,
+     * so a move costs the same no matter how many subsets there are.
+     * <ul>
+     *     <li>HARD: every segment must be covered.</li>
+     *     <li>SOFT: minimize the total cost of the selected subsets.</li>
+     * </ul>
+     */
+    public static class CoverageScoreCalculator
+            implements IncrementalScoreCalculator<RailwayMaintenancePlan, HardSoftLongScore> {
+        private SubsetTable table;
+        private int[] coverage;
+        private int uncoveredCount;
+        private long cost;
+
+        @Override
+        public void resetWorkingSolution(@NonNull RailwayMaintenancePlan workingSolution) {
+            table = workingSolution.getTable();
+            coverage = new int[table.getSegmentCount()];
+            uncoveredCount = table.getSegmentCount();
+            cost = 0L;
+            for (Subset subset : workingSolution.getSubsets()) {
+                insert(subset);
+            }
+        }
+
+        @Override
+        public void beforeEntityAdded(@NonNull Object entity) {
+        }
+
+        @Override
+        public void afterEntityAdded(@NonNull Object entity) {
+            insert((Subset) entity);
+        }
+
+        @Override
+        public void beforeVariableChanged(@NonNull Object entity, @NonNull String variableName) {
+            retract((Subset) entity);
+        }
+
+        @Override
+        public void afterVariableChanged(@NonNull Object entity, @NonNull String variableName) {
+            insert((Subset) entity);
+        }
+
+        @Override
+        public void beforeEntityRemoved(@NonNull Object entity) {
+            retract((Subset) entity);
+        }
+
+        @Override
+        public void afterEntityRemoved(@NonNull Object entity) {
+        }
+
+        private void insert(Subset subset) {
+            if (!subset.isSelected()) {
+                return;
+            }
+            int id = subset.getId();
+            for (int i = table.getStart(id); i < table.getEnd(id); i++) {
+                if (coverage[table.getSegment(i)]++ == 0) {
+                    uncoveredCount--;
+                }
+            }
+            cost += table.getCost(id);
+        }
+
+        private void retract(Subset subset) {
+            if (!subset.isSelected()) {
+                return;
+            }
+            int id = subset.getId();
+            for (int i = table.getStart(id); i < table.getEnd(id); i++) {
+                if (--coverage[table.getSegment(i)] == 0) {
+                    uncoveredCount++;
+                }
+            }
+            cost -= table.getCost(id);
+        }
+
+        @Override
+        public @NonNull HardSoftLongScore calculateScore() {
+            return HardSoftLongScore.of(-uncoveredCount, -cost);
+        }
+    }
+
+    /**
+     * Greedy set cover: repeatedly selects the subset with the lowest cost per newly covered segment,
+     * then deselects subsets that became redundant. The subsets wait in a binary heap of subset ids on their last known
+     * count of newly covered segments. That ratio only gets worse as more segments get covered,
+     * so only the top of the heap is recounted, and sifted down if it got worse.
+     */
+    public static final class GreedyCover {
+
+        private GreedyCover() {
+        }
+
+        public static void apply(RailwayMaintenancePlan plan) {
+            SubsetTable table = plan.getTable();
+            boolean[] covered = new boolean[table.getSegmentCount()];
+            int uncoveredCount = table.getSegmentCount();
+            boolean[] selected = new boolean[table.getSubsetCount()];
+            // Per subset, the newly covered segments when it was last counted
+            int[] counts = new int[table.getSubsetCount()];
+            int[] heap = new int[table.getSubsetCount()];
+            int heapSize = heap.length;
+            for (int subset = 0; subset < heap.length; subset++) {
+                counts[subset] = table.getEnd(subset) - table.getStart(subset);
+                heap[subset] = subset;
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(table, counts, heap, heapSize, i);
+            }
+            while (uncoveredCount > 0) {
+                int subset = heap[0];
+                int newlyCovered = 0;
+                for (int i = table.getStart(subset); i < table.getEnd(subset); i++) {
+                    if (!covered[table.getSegment(i)]) {
+                        newlyCovered++;
+                    }
+                }
+                if (newlyCovered > 0 && newlyCovered < counts[subset]) {
+                    counts[subset] = newlyCovered;
+                    siftDown(table, counts, heap, heapSize, 0);
+                    continue;
+                }
+                heap[0] = heap[--heapSize];
+                siftDown(table, counts, heap, heapSize, 0);
+                if (newlyCovered == 0) {
+                    continue;
+                }
+                selected[subset] = true;
+                for (int i = table.getStart(subset); i < table.getEnd(subset); i++) {
+                    int segment = table.getSegment(i);
+                    if (!covered[segment]) {
+                        covered[segment] = true;
+                        uncoveredCount--;
+                    }
+                }
+            }
+            removeRedundantSubsets(table, selected);
+            for (Subset subset : plan.getSubsets()) {
+                subset.setSelected(selected[subset.getId()]);
+            }
+        }
+
+        private static void siftDown(SubsetTable table, int[] counts, int[] heap, int heapSize, int index) {
+            int subset = heap[index];
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && isCheaper(table, counts, heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!isCheaper(table, counts, heap[child], subset)) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = subset;
+        }
+
+        /**
+         * @return true if the first subset costs less per newly covered segment, compared without dividing,
+         * or the same and it has the lower id
+         */
+        private static boolean isCheaper(SubsetTable table, int[] counts, int a, int b) {
+            int comparison = Long.compare((long) table.getCost(a) * counts[b], (long) table.getCost(b) * counts[a]);
+            return comparison < 0 || (comparison == 0 && a < b);
+        }
+
+        private static void removeRedundantSubsets(SubsetTable table, boolean[] selected) {
+            int[] coverage = new int[table.getSegmentCount()];
+            int selectedCount = 0;
+            for (int subset = 0; subset < selected.length; subset++) {
+                if (selected[subset]) {
+                    selectedCount++;
+                    for (int i = table.getStart(subset); i < table.getEnd(subset); i++) {
+                        coverage[table.getSegment(i)]++;
+                    }
+                }
+            }
+            // Sorted on the cost in the high bits, ties by id in the low bits
+            long[] costAndSubset = new long[selectedCount];
+            int next = 0;
+            for (int subset = 0; subset < selected.length; subset++) {
+                if (selected[subset]) {
+                    costAndSubset[next++] = (long) table.getCost(subset) << 32 | (Integer.MAX_VALUE - subset);
+                }
+            }
+            Arrays.sort(costAndSubset);
+            // Most expensive first, as dropping those saves the most
+            for (int i = costAndSubset.length - 1; i >= 0; i--) {
+                int subset = Integer.MAX_VALUE - (int) costAndSubset[i];
+                if (isRedundant(table, coverage, subset)) {
+                    selected[subset] = false;
+                    for (int j = table.getStart(subset); j < table.getEnd(subset); j++) {
+                        coverage[table.getSegment(j)]--;
+                    }
+                }
+            }
+        }
+
+        private static boolean isRedundant(SubsetTable table, int[] coverage, int subset) {
+            for (int i = table.getStart(subset); i < table.getEnd(subset); i++) {
+                if (coverage[table.getSegment(i)] < 2) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Replaces a selected subset covering a segment by another subset covering that segment.
+     * Flipping single subsets has to go through a solution with an uncovered segment (or a redundant subset),
+     * this move does both flips at once. If no selected subset covers the segment, it only selects one.
+     */
+    public static class ReplaceSubsetMoveIteratorFactory
+            implements MoveIteratorFactory<RailwayMaintenancePlan, ReplaceSubsetMove> {
+
+        @Override
+        public long getSize(ScoreDirector<RailwayMaintenancePlan> scoreDirector) {
+            return scoreDirector.getWorkingSolution().getSubsets().size();
+        }
+
+        /**
+         * Per segment, every subset covering it that isn't selected replaces every selected subset covering it.
+         */
+        @Override
+        public Iterator<ReplaceSubsetMove> createOriginalMoveIterator(
+                ScoreDirector<RailwayMaintenancePlan> scoreDirector) {
+            RailwayMaintenancePlan plan = scoreDirector.getWorkingSolution();
+            SubsetTable table = plan.getTable();
+            List<Subset> subsets = plan.getSubsets();
+            return new Iterator<>() {
+                private int segment = -1;
+                private int start;
+                private int end;
+                // The selected subsets covering the segment, only null if there are none
+                private final List<Subset> outs = new ArrayList<>();
+                private int inIndex;
+                private int outIndex;
+                private ReplaceSubsetMove nextMove;
+
+                @Override
+                public boolean hasNext() {
+                    while (nextMove == null && segment < table.getSegmentCount()) {
+                        if (segment < 0 || start + inIndex >= end) {
+                            nextSegment();
+                            continue;
+                        }
+                        Subset in = subsets.get(table.getCoveringSubset(start + inIndex));
+                        if (in.isSelected() || outIndex >= outs.size()) {
+                            inIndex++;
+                            outIndex = 0;
+                            continue;
+                        }
+                        nextMove = new ReplaceSubsetMove(outs.get(outIndex++), in);
+                    }
+                    return nextMove != null;
+                }
+
+                @Override
+                public ReplaceSubsetMove next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    ReplaceSubsetMove move = nextMove;
+                    nextMove = null;
+                    return move;
+                }
+
+                private void nextSegment() {
+                    segment++;
+                    inIndex = 0;
+                    outIndex = 0;
+                    outs.clear();
+                    if (segment < table.getSegmentCount()) {
+                        start = table.getCoveringStart(segment);
+                        end = table.getCoveringEnd(segment);
+                        for (int i = start; i < end; i++) {
+                            Subset candidate = subsets.get(table.getCoveringSubset(i));
+                            if (candidate.isSelected()) {
+                                outs.add(candidate);
+                            }
+                        }
+                        if (outs.isEmpty()) {
+                            outs.add(null);
+                        }
+                    }
+                }
+            };
+        }
+
+        @Override
+        public Iterator<ReplaceSubsetMove> createRandomMoveIterator(ScoreDirector<RailwayMaintenancePlan> scoreDirector,
+                Random workingRandom) {
+            RailwayMaintenancePlan plan = scoreDirector.getWorkingSolution();
+            SubsetTable table = plan.getTable();
+            List<Subset> subsets = plan.getSubsets();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return true;
+                }
+
+                @Override
+                public ReplaceSubsetMove next() {
+                    int segment = workingRandom.nextInt(table.getSegmentCount());
+                    int start = table.getCoveringStart(segment);
+                    int end = table.getCoveringEnd(segment);
+                    Subset in = subsets.get(table.getCoveringSubset(start + workingRandom.nextInt(end - start)));
+                    // Start at a random position, so every selected subset covering the segment gets a chance
+                    Subset out = null;
+                    int offset = workingRandom.nextInt(end - start);
+                    for (int i = 0; i < end - start && out == null; i++) {
+                        Subset candidate = subsets.get(table.getCoveringSubset(start + (offset + i) % (end - start)));
+                        if (candidate.isSelected()) {
+                            out = candidate;
+                        }
+                    }
+                    return new ReplaceSubsetMove(out, in);
+                }
+            };
+        }
+    }
+
+    /**
+     * Deselects one subset (if any) and selects another one.
+     */
+    public static class ReplaceSubsetMove extends AbstractMove<RailwayMaintenancePlan> {
+        private final Subset out;
+        private final Subset in;
+
+        public ReplaceSubsetMove(Subset out, Subset in) {
+            this.out = out;
+            this.in = in;
+        }
+
+        @Override
+        public boolean isMoveDoable(ScoreDirector<RailwayMaintenancePlan> scoreDirector) {
+            return !in.isSelected();
+        }
+
+        @Override
+        protected void doMoveOnGenuineVariables(ScoreDirector<RailwayMaintenancePlan> scoreDirector) {
+            if (out != null) {
+                scoreDirector.beforeVariableChanged(out, "selected");
+                out.setSelected(Boolean.FALSE);
+                scoreDirector.afterVariableChanged(out, "selected");
+            }
+            scoreDirector.beforeVariableChanged(in, "selected");
+            in.setSelected(Boolean.TRUE);
+            scoreDirector.afterVariableChanged(in, "selected");
+        }
+
+        @Override
+        public Collection<Subset> getPlanningEntities() {
+            return out == null ? List.of(in) : List.of(out, in);
+        }
+
+        @Override
+        public Collection<Boolean> getPlanningValues() {
+            return List.of(Boolean.TRUE);
+        }
+
+        @Override
+        public String toString() {
+            return out + " -> " + in;
+        }
+    }
+}
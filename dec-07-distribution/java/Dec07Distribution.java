@@ -0,0 +1,864 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+/// This file requires Jbang to run it.
+//DEPS ai.timefold.solver:timefold-solver-core:1.16.0
+//SOURCES ../../shared/java/InstanceReader.java
+//SOURCES ../../shared/java/SolverOptions.java
+
+import ai.timefold.solver.core.api.domain.entity.PlanningEntity;
+import ai.timefold.solver.core.api.domain.lookup.PlanningId;
+import ai.timefold.solver.core.api.domain.solution.PlanningEntityCollectionProperty;
+import ai.timefold.solver.core.api.domain.solution.PlanningScore;
+import ai.timefold.solver.core.api.domain.solution.PlanningSolution;
+import ai.timefold.solver.core.api.domain.valuerange.ValueRangeProvider;
+import ai.timefold.solver.core.api.domain.variable.PlanningVariable;
+import ai.timefold.solver.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
+import ai.timefold.solver.core.api.score.calculator.IncrementalScoreCalculator;
+import ai.timefold.solver.core.api.score.director.ScoreDirector;
+import ai.timefold.solver.core.config.heuristic.selector.common.SelectionOrder;
+import ai.timefold.solver.core.config.heuristic.selector.move.factory.MoveIteratorFactoryConfig;
+import ai.timefold.solver.core.config.localsearch.LocalSearchPhaseConfig;
+import ai.timefold.solver.core.config.score.director.ScoreDirectorFactoryConfig;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+import ai.timefold.solver.core.impl.heuristic.move.AbstractMove;
+import ai.timefold.solver.core.impl.heuristic.selector.move.factory.MoveIteratorFactory;
+import org.jspecify.annotations.NonNull;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+public class Dec07Distribution {
+
+    public static void main(String... args) {
+        // The instance can be passed as first argument, defaults to the one of this challenge
+        SolverOptions options = SolverOptions.parse(args, "../instance.txt");
+        DistributionPlan plan = createPlanFromInput(options.getInstanceFile());
+
+        // With --seconds, the exact search gets half of it and local search the rest
+        Long secondsSpentLimit = options.getSecondsSpentLimit();
+        long exactSeconds = secondsSpentLimit == null ? ExactPartitioner.DEFAULT_SECONDS_SPENT_LIMIT : secondsSpentLimit / 2;
+        long exactStart = System.nanoTime();
+        ExactPartitioner exact = new ExactPartitioner(plan.getTable());
+        exact.search(exactSeconds);
+        if (exact.getBestSelection() == null) {
+            System.out.println("Exact search: no partition found in " + exactSeconds
+                    + " seconds (" + exact.getNodeCount() + " nodes)");
+        } else {
+            System.out.println("Exact search: cost " + exact.getBestCost()
+                    + (exact.isProvenOptimal() ? ", proven optimal" : ", not proven optimal")
+                    + " (" + exact.getNodeCount() + " nodes)");
+            for (int subset : exact.getBestSelection()) {
+                plan.getSubsets().get(subset).setSelected(Boolean.TRUE);
+            }
+        }
+
+        DistributionPlan solution = plan;
+        if (!exact.isProvenOptimal()) {
+            SolverOptions localSearchOptions = options;
+            if (secondsSpentLimit != null) {
+                long exactSecondsSpent = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - exactStart);
+                localSearchOptions = options.withSecondsSpentLimit(Math.max(1L, secondsSpentLimit - exactSecondsSpent));
+            }
+            var result = localSearchOptions.solve(createSolverConfig(), plan, DistributionPlan::getScore);
+            solution = result.bestSolution();
+            System.out.println("Move evaluation speed: " + result.moveEvaluationSpeed() + "/sec");
+        }
+        System.out.println("Score: " + solution.getScore());
+        List<Integer> selected = solution.getSubsets().stream()
+                .filter(Subset::isSelected)
+                .map(subset -> subset.getId() + 1)
+                .toList();
+        System.out.println("Selected subsets (" + selected.size() + ", numbered by line): " + selected);
+    }
+
+    public static SolverConfig createSolverConfig() {
+        return new SolverConfig()
+                .withSolutionClass(DistributionPlan.class)
+                .withEntityClasses(Subset.class)
+                .withScoreDirectorFactory(new ScoreDirectorFactoryConfig()
+                        .withIncrementalScoreCalculatorClass(PartitionScoreCalculator.class))
+                // Stop the solver if no better solution is found for 10 seconds, cheaper partitions are rare.
+                .withTerminationConfig(new TerminationConfig()
+                        .withUnimprovedSecondsSpentLimit(10L))
+                // Every subset starts deselected (or selected by the exact search), so only local search is needed.
+                // Flipping a single subset always breaks the partition, so only repartition moves are used.
+                // Random subsets to deselect explore more than the windows of the original order.
+                .withPhases(new LocalSearchPhaseConfig()
+                        .withMoveSelectorConfig(new MoveIteratorFactoryConfig()
+                                .withMoveIteratorFactoryClass(RepartitionMoveIteratorFactory.class)
+                                .withSelectionOrder(SelectionOrder.RANDOM)));
+    }
+
+    /**
+     * Reads {@code <product count> <subset count>}, then a line per subset: {@code <cost> <size> <product>...}.
+     * The bundled instance announces more subsets than it contains and its last line is cut off,
+     * so reading stops at the end of the file and an incomplete last subset is dropped.
+     */
+    public static DistributionPlan createPlanFromInput(Path instanceFile) {
+        try (InstanceReader reader = InstanceReader.open(instanceFile)) {
+            int productCount = reader.nextInt();
+            int announcedSubsetCount = reader.nextInt();
+            int words = SubsetTable.wordCount(productCount);
+            int[] costs = new int[announcedSubsetCount];
+            long[] masks = new long[announcedSubsetCount * words];
+            int subsetCount = 0;
+            while (subsetCount < announcedSubsetCount && reader.hasNext()) {
+                int lineNumber = reader.getLineNumber();
+                int cost = reader.nextInt();
+                int size = reader.hasNextOnLine() ? reader.nextInt() : -1;
+                int read = 0;
+                while (read < size && reader.hasNextOnLine()) {
+                    int product = reader.nextInt();
+                    if (product < 1 || product > productCount) {
+                        throw new IllegalStateException("Product (" + product + ") on line " + lineNumber
+                                + " isn't between 1 and " + productCount + ".");
+                    }
+                    masks[subsetCount * words + ((product - 1) >>> 6)] |= 1L << (product - 1);
+                    read++;
+                }
+                if (read < size || size < 0) {
+                    Arrays.fill(masks, subsetCount * words, (subsetCount + 1) * words, 0L);
+                    System.out.println("Dropping the incomplete subset on line " + lineNumber + ".");
+                    break;
+                }
+                costs[subsetCount++] = cost;
+            }
+            if (subsetCount < announcedSubsetCount) {
+                System.out.println("The instance announces " + announcedSubsetCount + " subsets, but only "
+                        + subsetCount + " are read.");
+            }
+            SubsetTable table = new SubsetTable(productCount, Arrays.copyOf(costs, subsetCount),
+                    Arrays.copyOf(masks, subsetCount * words));
+            return new DistributionPlan(table);
+        }
+    }
+
+    /**
+     * All subsets as bitmasks over the products, {@code words} longs per subset in one flat array
+     * (3 longs for 135 products). Two subsets conflict if their masks share a bit,
+     * which takes one AND per word instead of comparing product lists.
+     * The index lists the subsets containing every product, the cheapest per product first.
+     * Products are numbered from 0 here, the instance numbers them from 1.
+     */
+    public static final class SubsetTable {
+        private final int productCount;
+        private final int words;
+        private final int[] costs;
+        private final long[] masks;
+        private final int[] sizes;
+        private final int[] containingOffsets;
+        private final int[] containingSubsets;
+
+        public SubsetTable(int productCount, int[] costs, long[] masks) {
+            this.productCount = productCount;
+            this.words = wordCount(productCount);
+            this.costs = costs;
+            this.masks = masks;
+            sizes = new int[costs.length];
+            for (int subset = 0; subset < costs.length; subset++) {
+                for (int word = 0; word < words; word++) {
+                    sizes[subset] += Long.bitCount(masks[subset * words + word]);
+                }
+            }
+            // Counting pass, then filling pass, so the index is built without any intermediate lists
+            containingOffsets = new int[productCount + 1];
+            for (int subset = 0; subset < costs.length; subset++) {
+                for (int product = nextProduct(subset, 0); product >= 0; product = nextProduct(subset, product + 1)) {
+                    containingOffsets[product + 1]++;
+                }
+            }
+            for (int product = 0; product < productCount; product++) {
+                containingOffsets[product + 1] += containingOffsets[product];
+                if (containingOffsets[product] == containingOffsets[product + 1]) {
+                    throw new IllegalStateException("Product (" + (product + 1) + ") isn't in any subset.");
+                }
+            }
+            containingSubsets = new int[containingOffsets[productCount]];
+            int[] next = Arrays.copyOf(containingOffsets, productCount);
+            for (int subset = 0; subset < costs.length; subset++) {
+                for (int product = nextProduct(subset, 0); product >= 0; product = nextProduct(subset, product + 1)) {
+                    containingSubsets[next[product]++] = subset;
+                }
+            }
+            for (int product = 0; product < productCount; product++) {
+                sortByCostPerProduct(containingOffsets[product], containingOffsets[product + 1]);
+            }
+        }
+
+        static int wordCount(int productCount) {
+            return (productCount + 63) >>> 6;
+        }
+
+        private void sortByCostPerProduct(int from, int to) {
+            // Insertion sort on the primitive array, a product is in a few hundred subsets at most
+            for (int i = from + 1; i < to; i++) {
+                int subset = containingSubsets[i];
+                int j = i - 1;
+                while (j >= from && compareCostPerProduct(containingSubsets[j], subset) > 0) {
+                    containingSubsets[j + 1] = containingSubsets[j];
+                    j--;
+                }
+                containingSubsets[j + 1] = subset;
+            }
+        }
+
+        private int compareCostPerProduct(int a, int b) {
+            return Long.compare((long) costs[a] * size(b), (long) costs[b] * size(a));
+        }
+
+        public int getProductCount() {
+            return productCount;
+        }
+
+        public int getWords() {
+            return words;
+        }
+
+        public int getSubsetCount() {
+            return costs.length;
+        }
+
+        public int getCost(int subset) {
+            return costs[subset];
+        }
+
+        public int size(int subset) {
+            return sizes[subset];
+        }
+
+        /**
+         * @return the first product of the subset from the given one on, or -1 if there is none
+         */
+        public int nextProduct(int subset, int fromProduct) {
+            return nextBit(masks, subset * words, words, fromProduct);
+        }
+
+        /**
+         * @return true if the subset shares no product with the given mask
+         */
+        public boolean isDisjoint(int subset, long[] mask) {
+            int offset = subset * words;
+            for (int word = 0; word < words; word++) {
+                if ((masks[offset + word] & mask[word]) != 0L) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public void or(int subset, long[] mask) {
+            int offset = subset * words;
+            for (int word = 0; word < words; word++) {
+                mask[word] |= masks[offset + word];
+            }
+        }
+
+        public void andNot(int subset, long[] mask) {
+            int offset = subset * words;
+            for (int word = 0; word < words; word++) {
+                mask[word] &= ~masks[offset + word];
+            }
+        }
+
+        public int getContainingStart(int product) {
+            return containingOffsets[product];
+        }
+
+        public int getContainingEnd(int product) {
+            return containingOffsets[product + 1];
+        }
+
+        /**
+         * @param index between {@link #getContainingStart(int)} and {@link #getContainingEnd(int)} of a product
+         */
+        public int getContainingSubset(int index) {
+            return containingSubsets[index];
+        }
+
+        /**
+         * @return the first bit from the given one on in {@code words} longs from {@code offset}, or -1 if none is set
+         */
+        static int nextBit(long[] bits, int offset, int words, int fromBit) {
+            int word = fromBit >>> 6;
+            if (word >= words) {
+                return -1;
+            }
+            long remaining = bits[offset + word] & (-1L << fromBit);
+            while (remaining == 0L) {
+                if (++word == words) {
+                    return -1;
+                }
+                remaining = bits[offset + word];
+            }
+            return (word << 6) + Long.numberOfTrailingZeros(remaining);
+        }
+    }
+
+    /**
+     * Depth-first branch and bound in the spirit of Knuth's Algorithm X (dancing links),
+     * with flat arrays instead of linked lists.
+     * Selecting a subset removes every subset that shares a product with it (itself included),
+     * which decrements the number of subsets that still fit each of their products.
+     * The removed subsets are pushed on a stack, and backtracking pops them to restore those counts.
+     * It branches on the uncovered product with the fewest subsets that still fit, a count that's known without a scan.
+     * The lower bound: every uncovered product costs at least the lowest cost per product of the subsets that still fit it.
+     * <p>
+     * It solves the whole instance, or completes a partial partition for the {@link RepartitionMove}.
+     */
+    public static final class ExactPartitioner {
+        public static final long DEFAULT_SECONDS_SPENT_LIMIT = 10L;
+
+        private final SubsetTable table;
+        private final long[] covered;
+        private final int[] selection;
+        // Per subset, whether it conflicts with the selection (or the products that were already covered)
+        private final boolean[] removed;
+        private final int[] removedStack;
+        private int removedCount;
+        // Per uncovered product, the number of subsets that aren't removed
+        private final int[] fitCounts;
+        private int[] bestSelection;
+        private long bestCost;
+        private long nodeCount;
+        private long nodeLimit;
+        private long deadline;
+        private boolean limitReached;
+
+        public ExactPartitioner(SubsetTable table) {
+            this.table = table;
+            this.covered = new long[table.getWords()];
+            this.selection = new int[table.getProductCount()];
+            this.removed = new boolean[table.getSubsetCount()];
+            this.removedStack = new int[table.getSubsetCount()];
+            this.fitCounts = new int[table.getProductCount()];
+        }
+
+        /**
+         * Searches the cheapest partition of all products.
+         */
+        public void search(long secondsSpentLimit) {
+            run(new long[table.getWords()], Long.MAX_VALUE, Long.MAX_VALUE,
+                    System.nanoTime() + secondsSpentLimit * 1_000_000_000L);
+        }
+
+        /**
+         * Searches the cheapest subsets that cover exactly the products outside the given mask.
+         *
+         * @param covered never modified
+         * @param costLimit only completions that cost at most this much are searched
+         * @param nodeLimit the search stops after visiting that many nodes
+         */
+        public void complete(long[] covered, long costLimit, long nodeLimit) {
+            run(covered, costLimit + 1L, nodeLimit, Long.MAX_VALUE);
+        }
+
+        private void run(long[] initialCovered, long costBound, long nodeLimit, long deadline) {
+            this.nodeLimit = nodeLimit;
+            this.deadline = deadline;
+            bestSelection = null;
+            bestCost = costBound;
+            nodeCount = 0L;
+            limitReached = false;
+            System.arraycopy(initialCovered, 0, covered, 0, covered.length);
+            // Only the subsets within the uncovered products can be selected, they are found through those products
+            Arrays.fill(removed, true);
+            Arrays.fill(fitCounts, 0);
+            removedCount = 0;
+            for (int product = nextUncovered(0); product >= 0; product = nextUncovered(product + 1)) {
+                for (int i = table.getContainingStart(product); i < table.getContainingEnd(product); i++) {
+                    int subset = table.getContainingSubset(i);
+                    if (removed[subset] && table.isDisjoint(subset, covered)) {
+                        removed[subset] = false;
+                        addFit(subset, 1);
+                    }
+                }
+            }
+            search(0, 0L);
+        }
+
+        private void search(int depth, long cost) {
+            if (++nodeCount > nodeLimit || ((nodeCount & 0x3FF) == 0 && System.nanoTime() > deadline)) {
+                limitReached = true;
+            }
+            if (limitReached) {
+                return;
+            }
+            int branchProduct = -1;
+            int branchFitCount = Integer.MAX_VALUE;
+            double lowerBound = cost;
+            for (int product = nextUncovered(0); product >= 0; product = nextUncovered(product + 1)) {
+                int fitCount = fitCounts[product];
+                if (fitCount == 0) {
+                    return;
+                }
+                lowerBound += cheapestCostPerProduct(product);
+                if (fitCount < branchFitCount) {
+                    branchProduct = product;
+                    branchFitCount = fitCount;
+                }
+            }
+            if (branchProduct < 0) {
+                bestCost = cost;
+                bestSelection = Arrays.copyOf(selection, depth);
+                return;
+            }
+            if (lowerBound >= bestCost) {
+                return;
+            }
+            for (int i = table.getContainingStart(branchProduct); i < table.getContainingEnd(branchProduct); i++) {
+                int subset = table.getContainingSubset(i);
+                if (removed[subset] || cost + table.getCost(subset) >= bestCost) {
+                    continue;
+                }
+                int removedMark = removedCount;
+                select(subset);
+                selection[depth] = subset;
+                search(depth + 1, cost + table.getCost(subset));
+                deselect(subset, removedMark);
+                if (limitReached) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Covers the products of the subset and removes every subset that still fits one of them.
+         */
+        private void select(int subset) {
+            table.or(subset, covered);
+            for (int product = table.nextProduct(subset, 0); product >= 0; product = table.nextProduct(subset, product + 1)) {
+                for (int i = table.getContainingStart(product); i < table.getContainingEnd(product); i++) {
+                    int conflicting = table.getContainingSubset(i);
+                    if (!removed[conflicting]) {
+                        removed[conflicting] = true;
+                        removedStack[removedCount++] = conflicting;
+                        addFit(conflicting, -1);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Restores the subsets removed since the mark, in reverse order, and uncovers the products of the subset.
+         */
+        private void deselect(int subset, int removedMark) {
+            while (removedCount > removedMark) {
+                int restored = removedStack[--removedCount];
+                removed[restored] = false;
+                addFit(restored, 1);
+            }
+            table.andNot(subset, covered);
+        }
+
+        private void addFit(int subset, int delta) {
+            for (int product = table.nextProduct(subset, 0); product >= 0; product = table.nextProduct(subset, product + 1)) {
+                fitCounts[product] += delta;
+            }
+        }
+
+        /**
+         * @return the cost per product of the first subset of the product that isn't removed,
+         * the subsets of a product are sorted by cost per product
+         */
+        private double cheapestCostPerProduct(int product) {
+            for (int i = table.getContainingStart(product); i < table.getContainingEnd(product); i++) {
+                int subset = table.getContainingSubset(i);
+                if (!removed[subset]) {
+                    return (double) table.getCost(subset) / table.size(subset);
+                }
+            }
+            throw new IllegalStateException("The product (" + product + ") has no subset that fits.");
+        }
+
+        private int nextUncovered(int fromProduct) {
+            for (int product = fromProduct; product < table.getProductCount(); product++) {
+                int word = product >>> 6;
+                long uncovered = ~covered[word] & (-1L << product);
+                if (uncovered != 0L) {
+                    int next = (word << 6) + Long.numberOfTrailingZeros(uncovered);
+                    return next < table.getProductCount() ? next : -1;
+                }
+                product = (word << 6) + 63;
+            }
+            return -1;
+        }
+
+        /**
+         * @return null if no partition was found
+         */
+        public int[] getBestSelection() {
+            return bestSelection;
+        }
+
+        public long getBestCost() {
+            return bestCost;
+        }
+
+        public boolean isProvenOptimal() {
+            return bestSelection != null && !limitReached;
+        }
+
+        public long getNodeCount() {
+            return nodeCount;
+        }
+    }
+
+    @PlanningEntity
+    public static class Subset {
+        @PlanningId
+        private Integer id;
+        @PlanningVariable
+        private Boolean selected;
+
+        public Subset() {
+        }
+
+        public Subset(int id) {
+            this.id = id;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public boolean isSelected() {
+            return Boolean.TRUE.equals(selected);
+        }
+
+        public Boolean getSelected() {
+            return selected;
+        }
+
+        public void setSelected(Boolean selected) {
+            this.selected = selected;
+        }
+
+        @Override
+        public String toString() {
+            return "Subset " + id;
+        }
+    }
+
+    @PlanningSolution
+    public static class DistributionPlan {
+        /**
+         * The product masks and costs of all subsets, as read from the instance.
+         */
+        private SubsetTable table;
+
+        @PlanningEntityCollectionProperty
+        private List<Subset> subsets;
+
+        @ValueRangeProvider
+        private List<Boolean> selectedRange = List.of(Boolean.FALSE, Boolean.TRUE);
+
+        @PlanningScore
+        private HardSoftLongScore score;
+
+        public DistributionPlan() {
+        }
+
+        public DistributionPlan(SubsetTable table) {
+            this.table = table;
+            this.subsets = new ArrayList<>(table.getSubsetCount());
+            for (int subset = 0; subset < table.getSubsetCount(); subset++) {
+                Subset entity = new Subset(subset);
+                entity.setSelected(Boolean.FALSE);
+                subsets.add(entity);
+            }
+        }
+
+        public SubsetTable getTable() {
+            return table;
+        }
+
+        public List<Subset> getSubsets() {
+            return subsets;
+        }
+
+        public HardSoftLongScore getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * Keeps the number of selected subsets containing every product in a primitive array.
+     * <ul>
+     *     <li>HARD: every product must be delivered exactly once, so it's in exactly one selected subset.</li>
+     *     <li>SOFT: minimize the total cost of the selected subsets.</li>
+     * </ul>
+     */
+    public static class PartitionScoreCalculator
+            implements IncrementalScoreCalculator<DistributionPlan, HardSoftLongScore> {
+        private SubsetTable table;
+        private int[] coverage;
+        private int coverageViolations;
+        private long cost;
+
+        @Override
+        public void resetWorkingSolution(@NonNull DistributionPlan workingSolution) {
+            table = workingSolution.getTable();
+            coverage = new int[table.getProductCount()];
+            coverageViolations = table.getProductCount();
+            cost = 0L;
+            for (Subset subset : workingSolution.getSubsets()) {
+                insert(subset);
+            }
+        }
+
+        @Override
+        public void beforeEntityAdded(@NonNull Object entity) {
+        }
+
+        @Override
+        public void afterEntityAdded(@NonNull Object entity) {
+            insert((Subset) entity);
+        }
+
+        @Override
+        public void beforeVariableChanged(@NonNull Object entity, @NonNull String variableName) {
+            retract((Subset) entity);
+        }
+
+        @Override
+        public void afterVariableChanged(@NonNull Object entity, @NonNull String variableName) {
+            insert((Subset) entity);
+        }
+
+        @Override
+        public void beforeEntityRemoved(@NonNull Object entity) {
+            retract((Subset) entity);
+        }
+
+        @Override
+        public void afterEntityRemoved(@NonNull Object entity) {
+        }
+
+        private void insert(Subset subset) {
+            if (!subset.isSelected()) {
+                return;
+            }
+            int id = subset.getId();
+            for (int product = table.nextProduct(id, 0); product >= 0; product = table.nextProduct(id, product + 1)) {
+                // From 0 to 1 fixes a violation, every increase beyond 1 adds one
+                coverageViolations += coverage[product]++ == 0 ? -1 : 1;
+            }
+            cost += table.getCost(id);
+        }
+
+        private void retract(Subset subset) {
+            if (!subset.isSelected()) {
+                return;
+            }
+            int id = subset.getId();
+            for (int product = table.nextProduct(id, 0); product >= 0; product = table.nextProduct(id, product + 1)) {
+                coverageViolations += --coverage[product] == 0 ? 1 : -1;
+            }
+            cost -= table.getCost(id);
+        }
+
+        @Override
+        public @NonNull HardSoftLongScore calculateScore() {
+            return HardSoftLongScore.of(-coverageViolations, -cost);
+        }
+    }
+
+    /**
+     * Deselects a few selected subsets and lets the {@link ExactPartitioner}
+     * partition the products they leave behind (and any product that wasn't covered yet) again.
+     * Selected randomly, it deselects random subsets.
+     * In original order, every move deselects the next selected subset and the ones after it, in order of id.
+     * Once the plan is feasible, only cheaper partitions are searched,
+     * which the lower bound prunes so well that a few thousand nodes usually suffice to search the gap completely.
+     * If none is found, the gap is filled greedily with the cheapest subsets per product that still fit,
+     * which usually leaves products uncovered, but keeps every move doable.
+     * That way the moves also reduce the uncovered products of an instance that has no partition at all.
+     */
+    public static class RepartitionMoveIteratorFactory
+            implements MoveIteratorFactory<DistributionPlan, RepartitionMove> {
+        private static final int MIN_DESELECTED_COUNT = 4;
+        private static final int MAX_DESELECTED_COUNT = 12;
+        private static final long NODE_LIMIT = 2_000L;
+
+        @Override
+        public long getSize(ScoreDirector<DistributionPlan> scoreDirector) {
+            return scoreDirector.getWorkingSolution().getSubsets().size();
+        }
+
+        @Override
+        public Iterator<RepartitionMove> createOriginalMoveIterator(ScoreDirector<DistributionPlan> scoreDirector) {
+            Repartitioner repartitioner = new Repartitioner(scoreDirector.getWorkingSolution());
+            List<Subset> selected = repartitioner.selected;
+            int deselectedCount = Math.min(selected.size(), MIN_DESELECTED_COUNT);
+            // Without selected subsets, a single move partitions all products
+            int moveCount = Math.max(1, selected.size());
+            return new Iterator<>() {
+                private int first = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return first < moveCount;
+                }
+
+                @Override
+                public RepartitionMove next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    List<Subset> outs = new ArrayList<>(deselectedCount);
+                    for (int i = 0; i < deselectedCount; i++) {
+                        outs.add(selected.get((first + i) % selected.size()));
+                    }
+                    first++;
+                    return repartitioner.repartition(outs);
+                }
+            };
+        }
+
+        @Override
+        public Iterator<RepartitionMove> createRandomMoveIterator(ScoreDirector<DistributionPlan> scoreDirector,
+                Random workingRandom) {
+            Repartitioner repartitioner = new Repartitioner(scoreDirector.getWorkingSolution());
+            List<Subset> selected = repartitioner.selected;
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return true;
+                }
+
+                @Override
+                public RepartitionMove next() {
+                    int deselectedCount = Math.min(selected.size(),
+                            MIN_DESELECTED_COUNT + workingRandom.nextInt(MAX_DESELECTED_COUNT - MIN_DESELECTED_COUNT + 1));
+                    // Partial Fisher-Yates shuffle, the first subsets of the list are deselected
+                    for (int i = 0; i < deselectedCount; i++) {
+                        int j = i + workingRandom.nextInt(selected.size() - i);
+                        selected.set(j, selected.set(i, selected.get(j)));
+                    }
+                    return repartitioner.repartition(List.copyOf(selected.subList(0, deselectedCount)));
+                }
+            };
+        }
+
+        /**
+         * The selected subsets of the plan when the iterator is created,
+         * the moves never keep their changes to the plan, so they stay the same for the iterator.
+         */
+        private static final class Repartitioner {
+            private final SubsetTable table;
+            private final List<Subset> subsets;
+            private final List<Subset> selected = new ArrayList<>();
+            private final long[] stepCovered;
+            private final boolean feasible;
+            private final long[] covered;
+            private final ExactPartitioner partitioner;
+
+            Repartitioner(DistributionPlan plan) {
+                table = plan.getTable();
+                subsets = plan.getSubsets();
+                stepCovered = new long[table.getWords()];
+                for (Subset subset : subsets) {
+                    if (subset.isSelected()) {
+                        selected.add(subset);
+                        table.or(subset.getId(), stepCovered);
+                    }
+                }
+                feasible = plan.getScore() == null || plan.getScore().isFeasible();
+                covered = new long[table.getWords()];
+                partitioner = new ExactPartitioner(table);
+            }
+
+            RepartitionMove repartition(List<Subset> outs) {
+                System.arraycopy(stepCovered, 0, covered, 0, covered.length);
+                long deselectedCost = 0L;
+                for (Subset out : outs) {
+                    table.andNot(out.getId(), covered);
+                    deselectedCost += table.getCost(out.getId());
+                }
+                partitioner.complete(covered, feasible ? deselectedCost - 1L : Long.MAX_VALUE - 1L, NODE_LIMIT);
+                int[] selection = partitioner.getBestSelection();
+                List<Subset> ins = new ArrayList<>();
+                if (selection != null) {
+                    for (int in : selection) {
+                        ins.add(subsets.get(in));
+                    }
+                } else {
+                    fillGreedily(ins);
+                }
+                return new RepartitionMove(outs, ins);
+            }
+
+            private void fillGreedily(List<Subset> ins) {
+                for (int product = 0; product < table.getProductCount(); product++) {
+                    if ((covered[product >>> 6] & (1L << product)) != 0L) {
+                        continue;
+                    }
+                    for (int i = table.getContainingStart(product); i < table.getContainingEnd(product); i++) {
+                        int subset = table.getContainingSubset(i);
+                        if (table.isDisjoint(subset, covered)) {
+                            ins.add(subsets.get(subset));
+                            table.or(subset, covered);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Deselects some subsets and selects others.
+     */
+    public static class RepartitionMove extends AbstractMove<DistributionPlan> {
+        private final List<Subset> outs;
+        private final List<Subset> ins;
+
+        public RepartitionMove(List<Subset> outs, List<Subset> ins) {
+            this.outs = outs;
+            this.ins = ins;
+        }
+
+        @Override
+        public boolean isMoveDoable(ScoreDirector<DistributionPlan> scoreDirector) {
+            return !outs.isEmpty() || !ins.isEmpty();
+        }
+
+        @Override
+        protected void doMoveOnGenuineVariables(ScoreDirector<DistributionPlan> scoreDirector) {
+            for (Subset out : outs) {
+                scoreDirector.beforeVariableChanged(out, "selected");
+                out.setSelected(Boolean.FALSE);
+                scoreDirector.afterVariableChanged(out, "selected");
+            }
+            for (Subset in : ins) {
+                scoreDirector.beforeVariableChanged(in, "selected");
+                in.setSelected(Boolean.TRUE);
+                scoreDirector.afterVariableChanged(in, "selected");
+            }
+        }
+
+        @Override
+        public Collection<Subset> getPlanningEntities() {
+            List<Subset> entities = new ArrayList<>(outs);
+            entities.addAll(ins);
+            return entities;
+        }
+
+        @Override
+        public Collection<Boolean> getPlanningValues() {
+            return List.of(Boolean.FALSE, Boolean.TRUE);
+        }
+
+        @Override
+        public String toString() {
+            return outs + " -> " + ins;
+        }
+    }
+}
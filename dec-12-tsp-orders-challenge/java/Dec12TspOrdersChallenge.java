@@ -0,0 +1,827 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+/// This file requires Jbang to run it.
+//DEPS ai.timefold.solver:timefold-solver-core:1.16.0
+//SOURCES ../../shared/java/InstanceReader.java
+//SOURCES ../../shared/java/SolverOptions.java
+
+import ai.timefold.solver.core.api.domain.entity.PlanningEntity;
+import ai.timefold.solver.core.api.domain.lookup.PlanningId;
+import ai.timefold.solver.core.api.domain.solution.PlanningEntityCollectionProperty;
+import ai.timefold.solver.core.api.domain.solution.PlanningEntityProperty;
+import ai.timefold.solver.core.api.domain.solution.PlanningScore;
+import ai.timefold.solver.core.api.domain.solution.PlanningSolution;
+import ai.timefold.solver.core.api.domain.valuerange.ValueRangeProvider;
+import ai.timefold.solver.core.api.domain.variable.NextElementShadowVariable;
+import ai.timefold.solver.core.api.domain.variable.PlanningListVariable;
+import ai.timefold.solver.core.api.domain.variable.PreviousElementShadowVariable;
+import ai.timefold.solver.core.api.score.buildin.simplelong.SimpleLongScore;
+import ai.timefold.solver.core.api.score.director.ScoreDirector;
+import ai.timefold.solver.core.api.score.stream.Constraint;
+import ai.timefold.solver.core.api.score.stream.ConstraintFactory;
+import ai.timefold.solver.core.api.score.stream.ConstraintProvider;
+import ai.timefold.solver.core.config.heuristic.selector.common.SelectionOrder;
+import ai.timefold.solver.core.config.heuristic.selector.move.factory.MoveIteratorFactoryConfig;
+import ai.timefold.solver.core.config.localsearch.LocalSearchPhaseConfig;
+import ai.timefold.solver.core.config.phase.custom.CustomPhaseConfig;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+import ai.timefold.solver.core.impl.heuristic.move.AbstractMove;
+import ai.timefold.solver.core.impl.heuristic.selector.move.factory.MoveIteratorFactory;
+import ai.timefold.solver.core.impl.phase.custom.CustomPhaseCommand;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class Dec12TspOrdersChallenge {
+
+    /**
+     * The best known tour of this instance (rbg443 in TSPLIB).
+     */
+    private static final long BEST_KNOWN_TRAVEL_TIME = 2720L;
+
+    public static void main(String... args) {
+        // The instance can be passed as first argument, defaults to the one of this challenge
+        SolverOptions options = SolverOptions.parse(args, "../instance.txt");
+        DeliveryPlan plan = createPlanFromInput(options.getInstanceFile());
+
+        var result = options.solve(createSolverConfig(), plan, DeliveryPlan::getScore);
+        DeliveryPlan solution = result.bestSolution();
+        System.out.println("Score: " + solution.getScore());
+        long travelTime = -solution.getScore().score();
+        System.out.printf("Gap to the best known tour of %d: %.2f%%%n", BEST_KNOWN_TRAVEL_TIME,
+                100.0 * (travelTime - BEST_KNOWN_TRAVEL_TIME) / BEST_KNOWN_TRAVEL_TIME);
+        List<Integer> route = new ArrayList<>();
+        route.add(TimeMatrix.DEPOT);
+        solution.getTraveler().getVisits().forEach(visit -> route.add(visit.getId()));
+        System.out.println("Route: " + route);
+        System.out.println("Move evaluation speed: " + result.moveEvaluationSpeed() + "/sec");
+    }
+
+    public static SolverConfig createSolverConfig() {
+        return new SolverConfig()
+                .withSolutionClass(DeliveryPlan.class)
+                .withEntityClasses(Traveler.class, Visit.class)
+                .withConstraintProviderClass(DeliveryConstraintProvider.class)
+                // Stop the solver if no better solution is found for 3 seconds.
+                .withTerminationConfig(new TerminationConfig()
+                        .withUnimprovedSecondsSpentLimit(3L))
+                // A nearest neighbour tour improved to a local optimum, then iterated local search,
+                // with random selection every move starts with a random kick
+                .withPhases(new CustomPhaseConfig()
+                                .withCustomPhaseCommandClassList(List.of(InitialTourCommand.class)),
+                        new LocalSearchPhaseConfig()
+                                .withMoveSelectorConfig(new MoveIteratorFactoryConfig()
+                                        .withMoveIteratorFactoryClass(IteratedLocalSearchMoveIteratorFactory.class)
+                                        .withSelectionOrder(SelectionOrder.RANDOM)));
+    }
+
+    public static DeliveryPlan createPlanFromInput(Path instanceFile) {
+        TimeMatrix timeMatrix = TimeMatrix.read(instanceFile);
+
+        // The route starts and ends at the depot, only the other locations are visits
+        var visitList = IntStream.range(1, timeMatrix.size())
+                .mapToObj(id -> new Visit(id, timeMatrix))
+                .toList();
+
+        return new DeliveryPlan(new Traveler(), visitList);
+    }
+
+    /**
+     * A location on the route. The shadow variables give every visit its neighbours in the route,
+     * so the constraint can score each leg separately and only rescore the legs a move touches.
+     */
+    @PlanningEntity
+    public static class Visit {
+        @PlanningId
+        private Integer id;
+        private TimeMatrix timeMatrix;
+
+        @PreviousElementShadowVariable(sourceVariableName = "visits")
+        private Visit previousVisit;
+        @NextElementShadowVariable(sourceVariableName = "visits")
+        private Visit nextVisit;
+
+        public Visit() {
+        }
+
+        public Visit(int id, TimeMatrix timeMatrix) {
+            this.id = id;
+            this.timeMatrix = timeMatrix;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * @return the time from the previous location, plus the time back to the depot for the last visit
+         */
+        public long getTravelTime() {
+            int previous = previousVisit == null ? TimeMatrix.DEPOT : previousVisit.getId();
+            long travelTime = timeMatrix.time(previous, id);
+            if (nextVisit == null) {
+                travelTime += timeMatrix.time(id, TimeMatrix.DEPOT);
+            }
+            return travelTime;
+        }
+
+        public Visit getPreviousVisit() {
+            return previousVisit;
+        }
+
+        public Visit getNextVisit() {
+            return nextVisit;
+        }
+
+        @Override
+        public String toString() {
+            return "Visit " + id;
+        }
+    }
+
+    @PlanningEntity
+    public static class Traveler {
+        @PlanningId
+        private Integer id = 1;
+        @PlanningListVariable
+        private List<Visit> visits;
+
+        public Traveler() {
+            this.visits = new ArrayList<>();
+        }
+
+        public List<Visit> getVisits() {
+            return visits;
+        }
+
+        public void setVisits(List<Visit> visits) {
+            this.visits = visits;
+        }
+    }
+
+    @PlanningSolution
+    public static class DeliveryPlan {
+        @PlanningEntityProperty
+        private Traveler traveler;
+
+        @PlanningEntityCollectionProperty
+        @ValueRangeProvider
+        private List<Visit> visits;
+
+        @PlanningScore
+        private SimpleLongScore score;
+
+        public DeliveryPlan() {
+        }
+
+        public DeliveryPlan(Traveler traveler, List<Visit> visits) {
+            this.traveler = traveler;
+            this.visits = visits;
+        }
+
+        public Traveler getTraveler() {
+            return traveler;
+        }
+
+        public List<Visit> getVisits() {
+            return visits;
+        }
+
+        public SimpleLongScore getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * Asymmetric travel times between all locations in one flat row-major array:
+     * {@code times[from * size + to]}, with the locations numbered from 0 as in the instance.
+     * Also keeps, per location, the nearest locations to go to and the nearest locations to come from,
+     * which differ as the times are asymmetric.
+     */
+    public static final class TimeMatrix {
+        /**
+         * The location where the route starts and ends.
+         */
+        public static final int DEPOT = 0;
+        /**
+         * Number of nearest locations kept per location and direction, for the local search.
+         */
+        static final int NEARBY_SIZE = 10;
+
+        private final int size;
+        private final int[] times;
+        private final int[] nearestSuccessors;
+        private final int[] nearestPredecessors;
+
+        public TimeMatrix(int size, int[] times) {
+            this.size = size;
+            this.times = times;
+            int nearbySize = Math.min(NEARBY_SIZE, size - 1);
+            this.nearestSuccessors = new int[size * nearbySize];
+            this.nearestPredecessors = new int[size * nearbySize];
+            long[] sortKeys = new long[size - 1];
+            for (int location = 0; location < size; location++) {
+                // Sort (time, other location) pairs packed in a long, without boxing
+                for (boolean outgoing : new boolean[] { true, false }) {
+                    int count = 0;
+                    for (int other = 0; other < size; other++) {
+                        if (other != location) {
+                            long time = outgoing ? time(location, other) : time(other, location);
+                            sortKeys[count++] = (time << 32) | other;
+                        }
+                    }
+                    Arrays.sort(sortKeys);
+                    int[] nearest = outgoing ? nearestSuccessors : nearestPredecessors;
+                    for (int i = 0; i < nearbySize; i++) {
+                        nearest[location * nearbySize + i] = (int) sortKeys[i];
+                    }
+                }
+            }
+        }
+
+        /**
+         * Reads a TSPLIB header ({@code DIMENSION}, {@code EDGE_WEIGHT_TYPE: EXPLICIT},
+         * {@code EDGE_WEIGHT_FORMAT: FULL_MATRIX}) followed by the full matrix after {@code EDGE_WEIGHT_SECTION}.
+         */
+        public static TimeMatrix read(Path instanceFile) {
+            try (InstanceReader reader = InstanceReader.open(instanceFile)) {
+                int size = -1;
+                String keyword;
+                while (!(keyword = reader.nextWord()).equals("EDGE_WEIGHT_SECTION")) {
+                    // Both "DIMENSION: 443" and "DIMENSION : 443" are valid TSPLIB
+                    String name = keyword.endsWith(":") ? keyword.substring(0, keyword.length() - 1) : keyword;
+                    String value = keyword.endsWith(":") ? reader.nextWord() : null;
+                    if (value == null) {
+                        value = reader.nextWord();
+                        if (value.equals(":")) {
+                            value = reader.nextWord();
+                        }
+                    }
+                    switch (name) {
+                        case "DIMENSION" -> size = Integer.parseInt(value);
+                        case "EDGE_WEIGHT_TYPE" -> expect(name, value, "EXPLICIT");
+                        case "EDGE_WEIGHT_FORMAT" -> expect(name, value, "FULL_MATRIX");
+                        default -> {
+                            // Ignore other headers, like NAME and COMMENT
+                        }
+                    }
+                }
+                if (size < 2) {
+                    throw new IllegalStateException("The instance needs a DIMENSION of at least 2 before the matrix.");
+                }
+                int[] times = new int[size * size];
+                for (int i = 0; i < times.length; i++) {
+                    times[i] = reader.nextInt();
+                }
+                return new TimeMatrix(size, times);
+            }
+        }
+
+        private static void expect(String name, String value, String expected) {
+            if (!value.equals(expected)) {
+                throw new IllegalStateException("The " + name + " (" + value + ") isn't supported, only " + expected + ".");
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int time(int from, int to) {
+            return times[from * size + to];
+        }
+
+        int nearbySize() {
+            return nearestSuccessors.length / size;
+        }
+
+        /**
+         * @param i between 0 and {@link #nearbySize()}, the nearest first
+         */
+        int nearestSuccessor(int location, int i) {
+            return nearestSuccessors[location * nearbySize() + i];
+        }
+
+        /**
+         * @param i between 0 and {@link #nearbySize()}, the nearest first
+         */
+        int nearestPredecessor(int location, int i) {
+            return nearestPredecessors[location * nearbySize() + i];
+        }
+    }
+
+    /**
+     * Local search on a tour of all locations in primitive arrays, with moves that never reverse a part of the tour,
+     * because a reversed part has a different travel time in an asymmetric instance.
+     * <ul>
+     *     <li>Or-opt: moves a segment of 1 to 3 locations elsewhere.</li>
+     *     <li>3-opt (segment insertion): turns {@code a B C d} into {@code a C B d}, so {@code B} and {@code C} keep their direction.</li>
+     * </ul>
+     * Both change 3 legs, so the delta of a move is 6 lookups in the {@link TimeMatrix}, independent of the tour length.
+     * Candidates come from the nearest locations only, and a queue of "don't look bits"
+     * limits the search to the locations around the last changes.
+     * Only an improving move is applied, in O(n).
+     */
+    public static final class ReversalFreeLocalSearch {
+        private static final int MAX_OR_OPT_LENGTH = 3;
+        private static final int MAX_KICK_SEGMENT_LENGTH = 50;
+
+        private final TimeMatrix timeMatrix;
+        private final int size;
+        private final int[] tour;
+        private final int[] position;
+        private final int[] buffer;
+        private final int[] queue;
+        private final boolean[] queued;
+        private int queueHead;
+        private int queueLength;
+
+        public ReversalFreeLocalSearch(TimeMatrix timeMatrix) {
+            this.timeMatrix = timeMatrix;
+            this.size = timeMatrix.size();
+            this.tour = new int[size];
+            this.position = new int[size];
+            this.buffer = new int[size];
+            this.queue = new int[size];
+            this.queued = new boolean[size];
+        }
+
+        /**
+         * @param order every location exactly once
+         */
+        public void load(int[] order) {
+            setTour(order);
+            Arrays.fill(queued, false);
+            queueHead = 0;
+            queueLength = 0;
+        }
+
+        /**
+         * Starts from the depot and always goes to the nearest location not visited yet.
+         */
+        public void loadNearestNeighbourTour() {
+            boolean[] visited = new boolean[size];
+            int[] order = new int[size];
+            order[0] = TimeMatrix.DEPOT;
+            visited[TimeMatrix.DEPOT] = true;
+            for (int i = 1; i < size; i++) {
+                int from = order[i - 1];
+                int nearest = -1;
+                for (int to = 0; to < size; to++) {
+                    if (!visited[to] && (nearest < 0 || timeMatrix.time(from, to) < timeMatrix.time(from, nearest))) {
+                        nearest = to;
+                    }
+                }
+                order[i] = nearest;
+                visited[nearest] = true;
+            }
+            load(order);
+        }
+
+        /**
+         * @return the tour, rotated to start at the depot
+         */
+        public int[] getOrder() {
+            int[] order = new int[size];
+            int depotPosition = position[TimeMatrix.DEPOT];
+            for (int i = 0; i < size; i++) {
+                order[i] = tour[(depotPosition + i) % size];
+            }
+            return order;
+        }
+
+        public long getTravelTime() {
+            long travelTime = 0L;
+            for (int i = 0; i < size; i++) {
+                travelTime += timeMatrix.time(tour[i], tour[(i + 1) % size]);
+            }
+            return travelTime;
+        }
+
+        /**
+         * Applies moves until none of the nearby moves improves the tour.
+         */
+        public void descend() {
+            if (queueLength == 0) {
+                for (int location = 0; location < size; location++) {
+                    enqueue(location);
+                }
+            }
+            while (queueLength > 0) {
+                int location = queue[queueHead];
+                queueHead = (queueHead + 1) % size;
+                queueLength--;
+                queued[location] = false;
+                if (improveSegmentInsertion(location) || improveOrOpt(location)) {
+                    enqueue(location);
+                }
+            }
+        }
+
+        /**
+         * A double bridge without reversals: moves a random segment after the random segment following it,
+         * regardless of the travel time. The locations around it are queued for {@link #descend()}.
+         */
+        public void kick(Random random) {
+            int maxLength = getMaxKickSegmentLength();
+            kick(tour[random.nextInt(size)], 1 + random.nextInt(maxLength), 1 + random.nextInt(maxLength));
+        }
+
+        /**
+         * The same kick, with the segments after {@code a} chosen by the caller.
+         *
+         * @param bLength between 1 and {@link #getMaxKickSegmentLength()}
+         * @param cLength between 1 and {@link #getMaxKickSegmentLength()}
+         */
+        public void kick(int a, int bLength, int cLength) {
+            if (size < 4) {
+                return;
+            }
+            int b = successor(a);
+            int bEnd = tour[(position[a] + bLength) % size];
+            int c = successor(bEnd);
+            int cEnd = tour[(position[a] + bLength + cLength) % size];
+            int d = successor(cEnd);
+            insertSegment(a, b, bEnd, c, cEnd, d);
+        }
+
+        public int getMaxKickSegmentLength() {
+            return Math.max(1, Math.min(MAX_KICK_SEGMENT_LENGTH, (size - 2) / 2));
+        }
+
+        /**
+         * Tries {@code a B C d -> a C B d} for {@code a}: the new leg {@code a -> c} goes to one of the nearest successors of a,
+         * the new leg {@code cEnd -> b} comes from one of the nearest predecessors of b.
+         */
+        private boolean improveSegmentInsertion(int a) {
+            int b = successor(a);
+            int removedAb = timeMatrix.time(a, b);
+            for (int i = 0; i < timeMatrix.nearbySize(); i++) {
+                int c = timeMatrix.nearestSuccessor(a, i);
+                int addedAc = timeMatrix.time(a, c);
+                if (addedAc >= removedAb) {
+                    // Sorted, so no later candidate gains on this leg either
+                    break;
+                }
+                int cOffset = offset(a, c);
+                if (cOffset < 2) {
+                    continue;
+                }
+                int bEnd = predecessor(c);
+                int removedBc = timeMatrix.time(bEnd, c);
+                for (int j = 0; j < timeMatrix.nearbySize(); j++) {
+                    int cEnd = timeMatrix.nearestPredecessor(b, j);
+                    if (offset(a, cEnd) < cOffset) {
+                        continue;
+                    }
+                    int d = successor(cEnd);
+                    long delta = addedAc + timeMatrix.time(cEnd, b) + timeMatrix.time(bEnd, d)
+                            - removedAb - removedBc - timeMatrix.time(cEnd, d);
+                    if (delta < 0L) {
+                        insertSegment(a, b, bEnd, c, cEnd, d);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Tries to move the segment of 1 to 3 locations starting at {@code first} between one of its nearest predecessors
+         * and that predecessor's successor.
+         */
+        private boolean improveOrOpt(int first) {
+            int previous = predecessor(first);
+            int last = first;
+            for (int length = 1; length <= MAX_OR_OPT_LENGTH && length < size - 2; length++) {
+                if (length > 1) {
+                    last = successor(last);
+                }
+                int next = successor(last);
+                if (next == previous) {
+                    return false;
+                }
+                long removed = timeMatrix.time(previous, first) + timeMatrix.time(last, next);
+                long added = timeMatrix.time(previous, next);
+                for (int i = 0; i < timeMatrix.nearbySize(); i++) {
+                    int x = timeMatrix.nearestPredecessor(first, i);
+                    if (x == previous || offset(first, x) < length) {
+                        // Inside the segment or already in front of it
+                        continue;
+                    }
+                    int y = successor(x);
+                    long delta = added + timeMatrix.time(x, first) + timeMatrix.time(last, y)
+                            - removed - timeMatrix.time(x, y);
+                    if (delta < 0L) {
+                        // Moving the segment after x equals inserting the part from next to x in front of it
+                        insertSegment(previous, first, last, next, x, y);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Turns {@code a b..bEnd c..cEnd d} into {@code a c..cEnd b..bEnd d} and queues the 6 endpoints.
+         */
+        private void insertSegment(int a, int b, int bEnd, int c, int cEnd, int d) {
+            int count = 0;
+            buffer[count++] = a;
+            count = copySegment(c, cEnd, count);
+            count = copySegment(b, bEnd, count);
+            if (d != a) {
+                count = copySegment(d, predecessor(a), count);
+            }
+            setTour(buffer);
+            enqueue(a);
+            enqueue(b);
+            enqueue(bEnd);
+            enqueue(c);
+            enqueue(cEnd);
+            enqueue(d);
+        }
+
+        private int copySegment(int from, int to, int count) {
+            for (int location = from; ; location = successor(location)) {
+                buffer[count++] = location;
+                if (location == to) {
+                    return count;
+                }
+            }
+        }
+
+        private void setTour(int[] order) {
+            System.arraycopy(order, 0, tour, 0, size);
+            for (int i = 0; i < size; i++) {
+                position[tour[i]] = i;
+            }
+        }
+
+        private void enqueue(int location) {
+            if (!queued[location]) {
+                queued[location] = true;
+                queue[(queueHead + queueLength++) % size] = location;
+            }
+        }
+
+        private int successor(int location) {
+            int next = position[location] + 1;
+            return tour[next == size ? 0 : next];
+        }
+
+        private int predecessor(int location) {
+            int previous = position[location] - 1;
+            return tour[previous < 0 ? size - 1 : previous];
+        }
+
+        /**
+         * @return how many legs {@code to} comes after {@code from} in the tour
+         */
+        private int offset(int from, int to) {
+            int offset = position[to] - position[from];
+            return offset < 0 ? offset + size : offset;
+        }
+    }
+
+    /**
+     * Builds the nearest neighbour tour and improves it to a local optimum of the {@link ReversalFreeLocalSearch},
+     * or just improves the route if it's already complete.
+     */
+    public static class InitialTourCommand implements CustomPhaseCommand<DeliveryPlan> {
+
+        @Override
+        public void changeWorkingSolution(ScoreDirector<DeliveryPlan> scoreDirector) {
+            DeliveryPlan plan = scoreDirector.getWorkingSolution();
+            Traveler traveler = plan.getTraveler();
+            TimeMatrix timeMatrix = plan.getVisits().get(0).timeMatrix;
+            ReversalFreeLocalSearch localSearch = new ReversalFreeLocalSearch(timeMatrix);
+            List<Visit> visits = traveler.getVisits();
+            boolean complete = visits.size() == plan.getVisits().size();
+            if (complete) {
+                localSearch.load(toOrder(visits, timeMatrix.size()));
+            } else if (visits.isEmpty()) {
+                localSearch.loadNearestNeighbourTour();
+            } else {
+                throw new IllegalStateException("The route must either be empty or contain all visits, but it has ("
+                        + visits.size() + ") of the (" + plan.getVisits().size() + ") visits.");
+            }
+            localSearch.descend();
+
+            Visit[] visitByLocation = visitByLocation(plan);
+            int[] order = localSearch.getOrder();
+            if (complete) {
+                scoreDirector.beforeListVariableChanged(traveler, "visits", 0, visits.size());
+                for (int i = 1; i < order.length; i++) {
+                    visits.set(i - 1, visitByLocation[order[i]]);
+                }
+                scoreDirector.afterListVariableChanged(traveler, "visits", 0, visits.size());
+            } else {
+                for (int i = 1; i < order.length; i++) {
+                    Visit visit = visitByLocation[order[i]];
+                    scoreDirector.beforeListVariableElementAssigned(traveler, "visits", visit);
+                    scoreDirector.beforeListVariableChanged(traveler, "visits", i - 1, i - 1);
+                    visits.add(visit);
+                    scoreDirector.afterListVariableChanged(traveler, "visits", i - 1, i);
+                    scoreDirector.afterListVariableElementAssigned(traveler, "visits", visit);
+                }
+            }
+            scoreDirector.triggerVariableListeners();
+        }
+    }
+
+    /**
+     * Every move kicks the current tour ({@link ReversalFreeLocalSearch#kick(Random)})
+     * and improves it to a new local optimum, so the local search phase is an iterated local search
+     * where Timefold decides which local optimum to continue from.
+     */
+    public static class IteratedLocalSearchMoveIteratorFactory
+            implements MoveIteratorFactory<DeliveryPlan, TourChangeMove> {
+
+        @Override
+        public long getSize(ScoreDirector<DeliveryPlan> scoreDirector) {
+            return scoreDirector.getWorkingSolution().getVisits().size();
+        }
+
+        /**
+         * Kicks after every location of the route in order, the n-th with two segments of
+         * {@code 1 + n % max} locations, so the kicks go from small to large along the route.
+         */
+        @Override
+        public Iterator<TourChangeMove> createOriginalMoveIterator(ScoreDirector<DeliveryPlan> scoreDirector) {
+            KickedTourMoves moves = new KickedTourMoves(scoreDirector.getWorkingSolution());
+            int[] stepOrder = moves.stepOrder;
+            return new Iterator<>() {
+                // One kick after every visit, as many as getSize()
+                private int index = 1;
+
+                @Override
+                public boolean hasNext() {
+                    return index < stepOrder.length;
+                }
+
+                @Override
+                public TourChangeMove next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int length = 1 + (index - 1) % moves.localSearch.getMaxKickSegmentLength();
+                    moves.localSearch.load(stepOrder);
+                    moves.localSearch.kick(stepOrder[index++], length, length);
+                    return moves.improveKickedTour();
+                }
+            };
+        }
+
+        @Override
+        public Iterator<TourChangeMove> createRandomMoveIterator(ScoreDirector<DeliveryPlan> scoreDirector,
+                Random workingRandom) {
+            KickedTourMoves moves = new KickedTourMoves(scoreDirector.getWorkingSolution());
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return true;
+                }
+
+                @Override
+                public TourChangeMove next() {
+                    moves.localSearch.load(moves.stepOrder);
+                    moves.localSearch.kick(workingRandom);
+                    return moves.improveKickedTour();
+                }
+            };
+        }
+
+        private static final class KickedTourMoves {
+            private final Traveler traveler;
+            private final Visit[] visitByLocation;
+            // Every move starts over from the route at the start of the step, it's only read once
+            private final int[] stepOrder;
+            private final ReversalFreeLocalSearch localSearch;
+
+            private KickedTourMoves(DeliveryPlan plan) {
+                this.traveler = plan.getTraveler();
+                TimeMatrix timeMatrix = plan.getVisits().get(0).timeMatrix;
+                this.visitByLocation = visitByLocation(plan);
+                this.stepOrder = toOrder(traveler.getVisits(), timeMatrix.size());
+                this.localSearch = new ReversalFreeLocalSearch(timeMatrix);
+            }
+
+            private TourChangeMove improveKickedTour() {
+                localSearch.descend();
+                int[] order = localSearch.getOrder();
+                // Only the part of the route between the first and the last changed location is replaced
+                int from = 1;
+                while (from < order.length && order[from] == stepOrder[from]) {
+                    from++;
+                }
+                int to = order.length;
+                while (to > from && order[to - 1] == stepOrder[to - 1]) {
+                    to--;
+                }
+                List<Visit> replacement = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    replacement.add(visitByLocation[order[i]]);
+                }
+                // The route starts after the depot, so its indexes are one lower
+                return new TourChangeMove(traveler, from - 1, replacement);
+            }
+        }
+    }
+
+    /**
+     * Replaces a part of the route by the same visits in another order.
+     */
+    public static class TourChangeMove extends AbstractMove<DeliveryPlan> {
+        private final Traveler traveler;
+        private final int fromIndex;
+        private final List<Visit> replacement;
+
+        public TourChangeMove(Traveler traveler, int fromIndex, List<Visit> replacement) {
+            this.traveler = traveler;
+            this.fromIndex = fromIndex;
+            this.replacement = replacement;
+        }
+
+        @Override
+        public boolean isMoveDoable(ScoreDirector<DeliveryPlan> scoreDirector) {
+            // An empty replacement leaves the route as is, but it's still a valid (neutral) move
+            return true;
+        }
+
+        @Override
+        protected void doMoveOnGenuineVariables(ScoreDirector<DeliveryPlan> scoreDirector) {
+            List<Visit> visits = traveler.getVisits();
+            int toIndex = fromIndex + replacement.size();
+            scoreDirector.beforeListVariableChanged(traveler, "visits", fromIndex, toIndex);
+            for (int i = 0; i < replacement.size(); i++) {
+                visits.set(fromIndex + i, replacement.get(i));
+            }
+            scoreDirector.afterListVariableChanged(traveler, "visits", fromIndex, toIndex);
+        }
+
+        @Override
+        public Collection<Traveler> getPlanningEntities() {
+            return List.of(traveler);
+        }
+
+        @Override
+        public Collection<Visit> getPlanningValues() {
+            return replacement;
+        }
+
+        @Override
+        public String toString() {
+            return "Reorder " + replacement.size() + " visits from index " + fromIndex;
+        }
+    }
+
+    private static Visit[] visitByLocation(DeliveryPlan plan) {
+        // The id of a visit is its location
+        Visit[] visitByLocation = new Visit[plan.getVisits().size() + 1];
+        for (Visit visit : plan.getVisits()) {
+            visitByLocation[visit.getId()] = visit;
+        }
+        return visitByLocation;
+    }
+
+    /**
+     * @return the depot, followed by the visits of the route
+     */
+    private static int[] toOrder(List<Visit> visits, int size) {
+        int[] order = new int[size];
+        order[0] = TimeMatrix.DEPOT;
+        for (int i = 0; i < visits.size(); i++) {
+            order[i + 1] = visits.get(i).getId();
+        }
+        return order;
+    }
+
+    public static class DeliveryConstraintProvider implements ConstraintProvider {
+
+        @Override
+        public Constraint[] defineConstraints(ConstraintFactory factory) {
+            return new Constraint[] {
+                    minimizeTravelTime(factory)
+            };
+        }
+
+        /**
+         * Creates a constraint which will reduce the score by 1 for each unit of time travelled.
+         * Every leg is matched on the visit it arrives at (and the last visit also pays the way back to the depot),
+         * so a move only rescores the legs it changes.
+         */
+        Constraint minimizeTravelTime(ConstraintFactory factory) {
+            return factory.forEach(Visit.class)
+                    .penalizeLong(SimpleLongScore.ONE, Visit::getTravelTime)
+                    .asConstraint("minimizeTravelTime");
+        }
+    }
+}
@@ -0,0 +1,867 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+/// This file requires Jbang to run it.
+//DEPS ai.timefold.solver:timefold-solver-core:1.16.0
+//SOURCES ../../shared/java/InstanceReader.java
+//SOURCES ../../shared/java/SolverOptions.java
+
+import ai.timefold.solver.core.api.domain.entity.PlanningEntity;
+import ai.timefold.solver.core.api.domain.lookup.PlanningId;
+import ai.timefold.solver.core.api.domain.solution.PlanningEntityCollectionProperty;
+import ai.timefold.solver.core.api.domain.solution.PlanningScore;
+import ai.timefold.solver.core.api.domain.solution.PlanningSolution;
+import ai.timefold.solver.core.api.domain.valuerange.ValueRangeProvider;
+import ai.timefold.solver.core.api.domain.variable.IndexShadowVariable;
+import ai.timefold.solver.core.api.domain.variable.InverseRelationShadowVariable;
+import ai.timefold.solver.core.api.domain.variable.NextElementShadowVariable;
+import ai.timefold.solver.core.api.domain.variable.PlanningListVariable;
+import ai.timefold.solver.core.api.domain.variable.PreviousElementShadowVariable;
+import ai.timefold.solver.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
+import ai.timefold.solver.core.api.score.director.ScoreDirector;
+import ai.timefold.solver.core.api.score.stream.Constraint;
+import ai.timefold.solver.core.api.score.stream.ConstraintFactory;
+import ai.timefold.solver.core.api.score.stream.ConstraintProvider;
+import ai.timefold.solver.core.config.heuristic.selector.move.composite.UnionMoveSelectorConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.factory.MoveIteratorFactoryConfig;
+import ai.timefold.solver.core.config.localsearch.LocalSearchPhaseConfig;
+import ai.timefold.solver.core.config.phase.custom.CustomPhaseConfig;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+import ai.timefold.solver.core.impl.heuristic.move.AbstractMove;
+import ai.timefold.solver.core.impl.heuristic.selector.move.factory.MoveIteratorFactory;
+import ai.timefold.solver.core.impl.phase.custom.CustomPhaseCommand;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+public class Dec16FlightCrewPlanning {
+
+    /**
+     * The challenge allows at most 35 crews, the instance file doesn't say.
+     */
+    private static final int DEFAULT_CREW_COUNT = 35;
+
+    public static void main(String... args) {
+        // Change the number of crews with --crews=<count>, the other arguments are the usual solver options
+        SolverOptions options = SolverOptions.parse(args, "../instance.txt", "crews=");
+        int crewCount = options.getPositiveIntOption("crews", DEFAULT_CREW_COUNT);
+        CrewInstance instance = CrewInstance.read(options.getInstanceFile());
+
+        var result = options.solve(createSolverConfig(), createPlan(instance, crewCount), CrewPlan::getScore);
+        CrewPlan solution = result.bestSolution();
+        System.out.println("Score: " + solution.getScore());
+        List<Crew> usedCrews = solution.getCrews().stream()
+                .filter(crew -> !crew.getTasks().isEmpty())
+                .toList();
+        System.out.println("Crews: " + usedCrews.size() + " of " + crewCount);
+        for (Crew crew : usedCrews) {
+            // The tasks are numbered from 1, as in the instance
+            List<Integer> tasks = crew.getTasks().stream().map(task -> task.getId() + 1).toList();
+            System.out.println("Crew " + crew.getId() + " (" + crew.getDutyTime() + " minutes): " + tasks);
+        }
+        System.out.println("Move evaluation speed: " + result.moveEvaluationSpeed() + "/sec");
+    }
+
+    public static SolverConfig createSolverConfig() {
+        return new SolverConfig()
+                .withSolutionClass(CrewPlan.class)
+                .withEntityClasses(Crew.class, Task.class)
+                .withConstraintProviderClass(CrewConstraintProvider.class)
+                // Stop the solver if no better solution is found for 5 seconds.
+                .withTerminationConfig(new TerminationConfig()
+                        .withUnimprovedSecondsSpentLimit(5L))
+                // Only moves along the transitions of the instance, so every chain of tasks stays possible
+                .withPhases(new CustomPhaseConfig()
+                                .withCustomPhaseCommandClassList(List.of(CheapestTransitionsFirstCommand.class)),
+                        new LocalSearchPhaseConfig()
+                                .withMoveSelectorConfig(new UnionMoveSelectorConfig()
+                                        .withMoveSelectors(new MoveIteratorFactoryConfig()
+                                                        .withMoveIteratorFactoryClass(RelocateTaskMoveIteratorFactory.class),
+                                                new MoveIteratorFactoryConfig()
+                                                        .withMoveIteratorFactoryClass(TailExchangeMoveIteratorFactory.class))));
+    }
+
+    public static CrewPlan createPlan(CrewInstance instance, int crewCount) {
+        var crews = IntStream.rangeClosed(1, crewCount).mapToObj(Crew::new).toList();
+        var tasks = IntStream.range(0, instance.taskCount())
+                .mapToObj(id -> new Task(id, instance))
+                .toList();
+        return new CrewPlan(crews, tasks);
+    }
+
+    /**
+     * The times and costs per task in flat arrays, indexed by task id (the number in the instance minus 1).
+     * <p>
+     * The transitions are a sparse graph, stored twice as primitive arrays:
+     * the cost of every pair of tasks in {@code transitionCosts[from * taskCount + to]},
+     * {@link #NO_TRANSITION} if a crew can't do both tasks one after the other,
+     * and the successors and predecessors of every task, in compressed rows:
+     * the successors of a task are {@code successors[successorStarts[task] .. successorStarts[task + 1]]}.
+     * The matrix answers in O(1) if a chain is possible, the rows let the moves only pick existing transitions.
+     */
+    public static final class CrewInstance {
+        static final int NO_TRANSITION = -1;
+
+        private final int timeLimit;
+        private final int[] fixedCosts;
+        private final int[] startTimes;
+        private final int[] finishTimes;
+        private final int[] transitionCosts;
+        private final int[] successorStarts;
+        private final int[] successors;
+        private final int[] predecessorStarts;
+        private final int[] predecessors;
+
+        private CrewInstance(int timeLimit, int[] fixedCosts, int[] startTimes, int[] finishTimes, int[] transitionCosts) {
+            this.timeLimit = timeLimit;
+            this.fixedCosts = fixedCosts;
+            this.startTimes = startTimes;
+            this.finishTimes = finishTimes;
+            this.transitionCosts = transitionCosts;
+            int taskCount = fixedCosts.length;
+            successorStarts = new int[taskCount + 1];
+            predecessorStarts = new int[taskCount + 1];
+            for (int from = 0; from < taskCount; from++) {
+                for (int to = 0; to < taskCount; to++) {
+                    if (hasTransition(from, to)) {
+                        successorStarts[from + 1]++;
+                        predecessorStarts[to + 1]++;
+                    }
+                }
+            }
+            for (int task = 0; task < taskCount; task++) {
+                successorStarts[task + 1] += successorStarts[task];
+                predecessorStarts[task + 1] += predecessorStarts[task];
+            }
+            successors = new int[successorStarts[taskCount]];
+            predecessors = new int[predecessorStarts[taskCount]];
+            int[] successorCounts = new int[taskCount];
+            int[] predecessorCounts = new int[taskCount];
+            for (int from = 0; from < taskCount; from++) {
+                for (int to = 0; to < taskCount; to++) {
+                    if (hasTransition(from, to)) {
+                        successors[successorStarts[from] + successorCounts[from]++] = to;
+                        predecessors[predecessorStarts[to] + predecessorCounts[to]++] = from;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Reads the number of tasks and the time limit of a crew on the first line,
+         * then the fixed cost, start and finish time per task,
+         * and the transitions until the end of the file: {@code <from task> <to task> <cost>}, numbered from 1.
+         */
+        public static CrewInstance read(Path instanceFile) {
+            try (InstanceReader reader = InstanceReader.open(instanceFile)) {
+                int taskCount = reader.nextInt();
+                int timeLimit = reader.nextInt();
+                int[] fixedCosts = new int[taskCount];
+                int[] startTimes = new int[taskCount];
+                int[] finishTimes = new int[taskCount];
+                for (int task = 0; task < taskCount; task++) {
+                    fixedCosts[task] = reader.nextInt();
+                    startTimes[task] = reader.nextInt();
+                    finishTimes[task] = reader.nextInt();
+                }
+                int[] transitionCosts = new int[taskCount * taskCount];
+                Arrays.fill(transitionCosts, NO_TRANSITION);
+                while (reader.hasNext()) {
+                    int from = reader.nextInt() - 1;
+                    int to = reader.nextInt() - 1;
+                    int cost = reader.nextInt();
+                    if (finishTimes[from] > startTimes[to]) {
+                        throw new IllegalStateException("The transition from task (" + (from + 1) + ") to task ("
+                                + (to + 1) + ") on line " + (reader.getLineNumber() - 1) + " goes back in time.");
+                    }
+                    transitionCosts[from * taskCount + to] = cost;
+                }
+                return new CrewInstance(timeLimit, fixedCosts, startTimes, finishTimes, transitionCosts);
+            }
+        }
+
+        public int taskCount() {
+            return fixedCosts.length;
+        }
+
+        /**
+         * @return the maximum minutes from the start of the first task of a crew until the finish of its last task
+         */
+        public int timeLimit() {
+            return timeLimit;
+        }
+
+        public int fixedCost(int task) {
+            return fixedCosts[task];
+        }
+
+        public int startTime(int task) {
+            return startTimes[task];
+        }
+
+        public int finishTime(int task) {
+            return finishTimes[task];
+        }
+
+        public boolean hasTransition(int from, int to) {
+            return transitionCosts[from * fixedCosts.length + to] != NO_TRANSITION;
+        }
+
+        /**
+         * @return the cost, or {@link #NO_TRANSITION}
+         */
+        public int transitionCost(int from, int to) {
+            return transitionCosts[from * fixedCosts.length + to];
+        }
+
+        public int successorCount(int task) {
+            return successorStarts[task + 1] - successorStarts[task];
+        }
+
+        public int successor(int task, int i) {
+            return successors[successorStarts[task] + i];
+        }
+
+        public int predecessorCount(int task) {
+            return predecessorStarts[task + 1] - predecessorStarts[task];
+        }
+
+        public int predecessor(int task, int i) {
+            return predecessors[predecessorStarts[task] + i];
+        }
+    }
+
+    /**
+     * A flight, or another task, for a crew. The shadow variables give every task its neighbours in the chain of its crew.
+     */
+    @PlanningEntity
+    public static class Task {
+        @PlanningId
+        private Integer id;
+        private CrewInstance instance;
+
+        @InverseRelationShadowVariable(sourceVariableName = "tasks")
+        private Crew crew;
+        @PreviousElementShadowVariable(sourceVariableName = "tasks")
+        private Task previousTask;
+        @NextElementShadowVariable(sourceVariableName = "tasks")
+        private Task nextTask;
+        @IndexShadowVariable(sourceVariableName = "tasks")
+        private Integer index;
+
+        public Task() {
+        }
+
+        public Task(int id, CrewInstance instance) {
+            this.id = id;
+            this.instance = instance;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public Crew getCrew() {
+            return crew;
+        }
+
+        public Task getPreviousTask() {
+            return previousTask;
+        }
+
+        public Task getNextTask() {
+            return nextTask;
+        }
+
+        public Integer getIndex() {
+            return index;
+        }
+
+        public int getFixedCost() {
+            return instance.fixedCost(id);
+        }
+
+        /**
+         * The moves only follow the transitions of the instance, so there always is one.
+         *
+         * @return the cost of coming from the previous task of the crew, 0 for the first task
+         */
+        public int getTransitionCost() {
+            if (previousTask == null) {
+                return 0;
+            }
+            int cost = instance.transitionCost(previousTask.id, id);
+            if (cost == CrewInstance.NO_TRANSITION) {
+                throw new IllegalStateException("The crew (" + crew + ") can't do " + this + " after "
+                        + previousTask + ".");
+            }
+            return cost;
+        }
+
+        @Override
+        public String toString() {
+            return "Task " + (id + 1);
+        }
+    }
+
+    @PlanningEntity
+    public static class Crew {
+        @PlanningId
+        private Integer id;
+        @PlanningListVariable
+        private List<Task> tasks;
+
+        public Crew() {
+            this.tasks = new ArrayList<>();
+        }
+
+        public Crew(int id) {
+            this();
+            this.id = id;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public List<Task> getTasks() {
+            return tasks;
+        }
+
+        public void setTasks(List<Task> tasks) {
+            this.tasks = tasks;
+        }
+
+        /**
+         * @return the minutes from the start of the first task until the finish of the last one, 0 without tasks
+         */
+        public int getDutyTime() {
+            if (tasks.isEmpty()) {
+                return 0;
+            }
+            Task first = tasks.get(0);
+            Task last = tasks.get(tasks.size() - 1);
+            return first.instance.finishTime(last.id) - first.instance.startTime(first.id);
+        }
+
+        public int getMinutesOverTimeLimit() {
+            return tasks.isEmpty() ? 0 : Math.max(0, getDutyTime() - tasks.get(0).instance.timeLimit());
+        }
+
+        @Override
+        public String toString() {
+            return "Crew " + id;
+        }
+    }
+
+    @PlanningSolution
+    public static class CrewPlan {
+        @PlanningEntityCollectionProperty
+        private List<Crew> crews;
+
+        @PlanningEntityCollectionProperty
+        @ValueRangeProvider
+        private List<Task> tasks;
+
+        @PlanningScore
+        private HardSoftLongScore score;
+
+        public CrewPlan() {
+        }
+
+        public CrewPlan(List<Crew> crews, List<Task> tasks) {
+            this.crews = crews;
+            this.tasks = tasks;
+        }
+
+        public List<Crew> getCrews() {
+            return crews;
+        }
+
+        public List<Task> getTasks() {
+            return tasks;
+        }
+
+        public HardSoftLongScore getScore() {
+            return score;
+        }
+    }
+
+    public static class CrewConstraintProvider implements ConstraintProvider {
+
+        @Override
+        public Constraint[] defineConstraints(ConstraintFactory factory) {
+            return new Constraint[]{
+                    stayWithinTimeLimit(factory),
+                    minimizeTransitionCost(factory),
+                    taskCost(factory)
+            };
+        }
+
+        /**
+         * Creates a constraint which will reduce the HARD score by 1 for each minute a crew works over the time limit.
+         */
+        Constraint stayWithinTimeLimit(ConstraintFactory factory) {
+            return factory.forEach(Crew.class)
+                    .filter(crew -> crew.getMinutesOverTimeLimit() > 0)
+                    .penalizeLong(HardSoftLongScore.ONE_HARD, Crew::getMinutesOverTimeLimit)
+                    .asConstraint("stayWithinTimeLimit");
+        }
+
+        /**
+         * Creates a constraint which will reduce the SOFT score by the cost of every transition between two tasks.
+         */
+        Constraint minimizeTransitionCost(ConstraintFactory factory) {
+            return factory.forEach(Task.class)
+                    .filter(task -> task.getPreviousTask() != null)
+                    .penalizeLong(HardSoftLongScore.ONE_SOFT, Task::getTransitionCost)
+                    .asConstraint("minimizeTransitionCost");
+        }
+
+        /**
+         * Creates a constraint which will reduce the SOFT score by the fixed cost of every task.
+         * It's the same for every plan, so the score is the total cost.
+         */
+        Constraint taskCost(ConstraintFactory factory) {
+            return factory.forEach(Task.class)
+                    .filter(task -> task.getCrew() != null)
+                    .penalizeLong(HardSoftLongScore.ONE_SOFT, Task::getFixedCost)
+                    .asConstraint("taskCost");
+        }
+    }
+
+    /**
+     * Every task starts as a chain on its own. Links the cheapest transitions first,
+     * if they connect the end of one chain to the start of another one and the crew stays within the time limit,
+     * until there are as many chains as crews. Every transition costs, so no more transitions are linked than needed.
+     * If that leaves too many chains, it links more of them regardless of the time limit.
+     */
+    public static class CheapestTransitionsFirstCommand implements CustomPhaseCommand<CrewPlan> {
+
+        @Override
+        public void changeWorkingSolution(ScoreDirector<CrewPlan> scoreDirector) {
+            CrewPlan plan = scoreDirector.getWorkingSolution();
+            if (plan.getCrews().stream().anyMatch(crew -> !crew.getTasks().isEmpty())) {
+                // Already initialized, for example by an earlier run
+                return;
+            }
+            List<Task> taskList = plan.getTasks();
+            CrewInstance instance = taskList.get(0).instance;
+            int taskCount = instance.taskCount();
+            List<Integer> transitions = IntStream.range(0, taskCount * taskCount)
+                    .filter(transition -> instance.hasTransition(transition / taskCount, transition % taskCount))
+                    .boxed()
+                    .sorted(Comparator.comparingInt(
+                            transition -> instance.transitionCost(transition / taskCount, transition % taskCount)))
+                    .toList();
+            int[] next = new int[taskCount];
+            int[] previous = new int[taskCount];
+            Arrays.fill(next, -1);
+            Arrays.fill(previous, -1);
+            // For the first and the last task of a chain: the task at its other end
+            int[] otherEnd = IntStream.range(0, taskCount).toArray();
+            int chainCount = taskCount;
+            // If the time limit leaves too many chains, the local search has to fix the crews that work too long
+            for (boolean withinTimeLimit : new boolean[]{true, false}) {
+                for (int transition : transitions) {
+                    if (chainCount <= plan.getCrews().size()) {
+                        break;
+                    }
+                    int from = transition / taskCount;
+                    int to = transition % taskCount;
+                    if (next[from] >= 0 || previous[to] >= 0) {
+                        continue;
+                    }
+                    int first = otherEnd[from];
+                    int last = otherEnd[to];
+                    if (first == to || (withinTimeLimit
+                            && instance.finishTime(last) - instance.startTime(first) > instance.timeLimit())) {
+                        continue;
+                    }
+                    next[from] = to;
+                    previous[to] = from;
+                    otherEnd[first] = last;
+                    otherEnd[last] = first;
+                    chainCount--;
+                }
+            }
+            if (chainCount > plan.getCrews().size()) {
+                throw new IllegalStateException("The cheapest transitions first chain the tasks into (" + chainCount
+                        + ") crews, but there are only (" + plan.getCrews().size() + ").");
+            }
+
+            int crewIndex = 0;
+            for (int first = 0; first < taskCount; first++) {
+                if (previous[first] >= 0) {
+                    continue;
+                }
+                Crew crew = plan.getCrews().get(crewIndex++);
+                List<Task> tasks = crew.getTasks();
+                for (int task = first; task >= 0; task = next[task]) {
+                    Task element = taskList.get(task);
+                    int i = tasks.size();
+                    scoreDirector.beforeListVariableElementAssigned(crew, "tasks", element);
+                    scoreDirector.beforeListVariableChanged(crew, "tasks", i, i);
+                    tasks.add(element);
+                    scoreDirector.afterListVariableChanged(crew, "tasks", i, i + 1);
+                    scoreDirector.afterListVariableElementAssigned(crew, "tasks", element);
+                }
+            }
+            scoreDirector.triggerVariableListeners();
+        }
+    }
+
+    /**
+     * Random moves are mostly impossible on a sparse transition graph: a task can only follow a few other tasks.
+     * These moves put a task right after one of its predecessors in the graph, or first in a crew.
+     * A move that would still break a chain isn't doable, so it's skipped before it's scored.
+     * Selected randomly, that's tried a few times per move.
+     */
+    public static class RelocateTaskMoveIteratorFactory implements MoveIteratorFactory<CrewPlan, RelocateTaskMove> {
+        private static final int ATTEMPTS_PER_MOVE = 100;
+
+        @Override
+        public long getSize(ScoreDirector<CrewPlan> scoreDirector) {
+            CrewPlan plan = scoreDirector.getWorkingSolution();
+            return (long) plan.getTasks().size() * plan.getCrews().size();
+        }
+
+        /**
+         * Every task after each of its predecessors, then first in each crew.
+         */
+        @Override
+        public Iterator<RelocateTaskMove> createOriginalMoveIterator(ScoreDirector<CrewPlan> scoreDirector) {
+            CrewPlan plan = scoreDirector.getWorkingSolution();
+            return new TaskOptionIterator<>(plan.getTasks(),
+                    task -> task.instance.predecessorCount(task.id) + plan.getCrews().size(),
+                    (task, option) -> createMove(plan, task, option));
+        }
+
+        @Override
+        public Iterator<RelocateTaskMove> createRandomMoveIterator(ScoreDirector<CrewPlan> scoreDirector,
+                Random workingRandom) {
+            CrewPlan plan = scoreDirector.getWorkingSolution();
+            List<Task> tasks = plan.getTasks();
+            int crewCount = plan.getCrews().size();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return !tasks.isEmpty();
+                }
+
+                @Override
+                public RelocateTaskMove next() {
+                    RelocateTaskMove move = null;
+                    for (int attempt = 0; attempt < ATTEMPTS_PER_MOVE; attempt++) {
+                        Task task = tasks.get(workingRandom.nextInt(tasks.size()));
+                        int predecessorCount = task.instance.predecessorCount(task.id);
+                        // As likely as a single predecessor, first in a random crew
+                        int option = workingRandom.nextInt(predecessorCount + 1);
+                        if (option == predecessorCount) {
+                            option += workingRandom.nextInt(crewCount);
+                        }
+                        move = createMove(plan, task, option);
+                        if (move.isMoveDoable(scoreDirector)) {
+                            return move;
+                        }
+                    }
+                    return move;
+                }
+            };
+        }
+
+        /**
+         * @param option below the predecessor count of the task: after that predecessor, otherwise first in a crew
+         */
+        private static RelocateTaskMove createMove(CrewPlan plan, Task task, int option) {
+            int predecessorCount = task.instance.predecessorCount(task.id);
+            if (option >= predecessorCount) {
+                return new RelocateTaskMove(task.getCrew(), task.getIndex(), plan.getCrews().get(option - predecessorCount), 0);
+            }
+            Task predecessor = plan.getTasks().get(task.instance.predecessor(task.id, option));
+            Crew destinationCrew = predecessor.getCrew();
+            int destinationIndex = predecessor.getIndex() + 1;
+            if (destinationCrew == task.getCrew() && task.getIndex() < destinationIndex) {
+                // The task is removed first, which shifts the destination
+                destinationIndex--;
+            }
+            return new RelocateTaskMove(task.getCrew(), task.getIndex(), destinationCrew, destinationIndex);
+        }
+    }
+
+    /**
+     * Moves the task at an index of one crew to an index of another crew, or of the same crew.
+     * The destination index is the index after the task has been removed from its current position.
+     * Only doable if all crews can still do their tasks one after the other.
+     */
+    public static class RelocateTaskMove extends AbstractMove<CrewPlan> {
+        private final Task task;
+        private final Crew sourceCrew;
+        private final int sourceIndex;
+        private final Crew destinationCrew;
+        private final int destinationIndex;
+
+        public RelocateTaskMove(Crew sourceCrew, int sourceIndex, Crew destinationCrew, int destinationIndex) {
+            this.task = sourceCrew.getTasks().get(sourceIndex);
+            this.sourceCrew = sourceCrew;
+            this.sourceIndex = sourceIndex;
+            this.destinationCrew = destinationCrew;
+            this.destinationIndex = destinationIndex;
+        }
+
+        @Override
+        public boolean isMoveDoable(ScoreDirector<CrewPlan> scoreDirector) {
+            if (sourceCrew == destinationCrew && sourceIndex == destinationIndex) {
+                return false;
+            }
+            List<Task> sourceTasks = sourceCrew.getTasks();
+            if (sourceIndex > 0 && sourceIndex < sourceTasks.size() - 1
+                    && !canFollow(sourceTasks.get(sourceIndex - 1), sourceTasks.get(sourceIndex + 1))) {
+                return false;
+            }
+            int destinationSize = destinationCrew.getTasks().size() - (sourceCrew == destinationCrew ? 1 : 0);
+            return (destinationIndex == 0 || canFollow(taskAfterRemoval(destinationIndex - 1), task))
+                    && (destinationIndex == destinationSize || canFollow(task, taskAfterRemoval(destinationIndex)));
+        }
+
+        /**
+         * @return the task at the index of the destination crew, once the task has been removed from the source crew
+         */
+        private Task taskAfterRemoval(int index) {
+            if (sourceCrew == destinationCrew && index >= sourceIndex) {
+                index++;
+            }
+            return destinationCrew.getTasks().get(index);
+        }
+
+        @Override
+        protected void doMoveOnGenuineVariables(ScoreDirector<CrewPlan> scoreDirector) {
+            if (sourceCrew == destinationCrew) {
+                List<Task> tasks = sourceCrew.getTasks();
+                int fromIndex = Math.min(sourceIndex, destinationIndex);
+                int toIndex = Math.max(sourceIndex, destinationIndex) + 1;
+                scoreDirector.beforeListVariableChanged(sourceCrew, "tasks", fromIndex, toIndex);
+                tasks.add(destinationIndex, tasks.remove(sourceIndex));
+                scoreDirector.afterListVariableChanged(sourceCrew, "tasks", fromIndex, toIndex);
+            } else {
+                scoreDirector.beforeListVariableChanged(sourceCrew, "tasks", sourceIndex, sourceIndex + 1);
+                sourceCrew.getTasks().remove(sourceIndex);
+                scoreDirector.afterListVariableChanged(sourceCrew, "tasks", sourceIndex, sourceIndex);
+                scoreDirector.beforeListVariableChanged(destinationCrew, "tasks", destinationIndex, destinationIndex);
+                destinationCrew.getTasks().add(destinationIndex, task);
+                scoreDirector.afterListVariableChanged(destinationCrew, "tasks", destinationIndex, destinationIndex + 1);
+            }
+        }
+
+        @Override
+        public Collection<Crew> getPlanningEntities() {
+            return sourceCrew == destinationCrew ? List.of(sourceCrew) : List.of(sourceCrew, destinationCrew);
+        }
+
+        @Override
+        public Collection<Task> getPlanningValues() {
+            return List.of(task);
+        }
+
+        @Override
+        public String toString() {
+            return task + " {" + sourceCrew + "[" + sourceIndex + "] -> "
+                    + destinationCrew + "[" + destinationIndex + "]}";
+        }
+    }
+
+    /**
+     * Cuts the chains of two crews after a task and exchanges the parts after the cut.
+     * The first crew is cut after a task, the second one right before a successor of that task in the graph,
+     * or at its end, so the first crew hands over the rest of its chain.
+     * A move that would break the other transition isn't doable, so it's skipped before it's scored.
+     */
+    public static class TailExchangeMoveIteratorFactory implements MoveIteratorFactory<CrewPlan, TailExchangeMove> {
+        private static final int ATTEMPTS_PER_MOVE = 100;
+
+        @Override
+        public long getSize(ScoreDirector<CrewPlan> scoreDirector) {
+            CrewPlan plan = scoreDirector.getWorkingSolution();
+            return (long) plan.getTasks().size() * plan.getCrews().size();
+        }
+
+        /**
+         * Every task before each of its successors, then before the end of each crew.
+         */
+        @Override
+        public Iterator<TailExchangeMove> createOriginalMoveIterator(ScoreDirector<CrewPlan> scoreDirector) {
+            CrewPlan plan = scoreDirector.getWorkingSolution();
+            return new TaskOptionIterator<>(plan.getTasks(),
+                    task -> task.instance.successorCount(task.id) + plan.getCrews().size(),
+                    (task, option) -> createMove(plan, task, option));
+        }
+
+        @Override
+        public Iterator<TailExchangeMove> createRandomMoveIterator(ScoreDirector<CrewPlan> scoreDirector,
+                Random workingRandom) {
+            CrewPlan plan = scoreDirector.getWorkingSolution();
+            List<Task> tasks = plan.getTasks();
+            int crewCount = plan.getCrews().size();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return !tasks.isEmpty();
+                }
+
+                @Override
+                public TailExchangeMove next() {
+                    TailExchangeMove move = null;
+                    for (int attempt = 0; attempt < ATTEMPTS_PER_MOVE; attempt++) {
+                        Task task = tasks.get(workingRandom.nextInt(tasks.size()));
+                        int successorCount = task.instance.successorCount(task.id);
+                        // As likely as a single successor, the end of a random crew
+                        int option = workingRandom.nextInt(successorCount + 1);
+                        if (option == successorCount) {
+                            option += workingRandom.nextInt(crewCount);
+                        }
+                        move = createMove(plan, task, option);
+                        if (move.isMoveDoable(scoreDirector)) {
+                            return move;
+                        }
+                    }
+                    return move;
+                }
+            };
+        }
+
+        /**
+         * @param option below the successor count of the task: cut the other crew before that successor,
+         * otherwise at the end of a crew
+         */
+        private static TailExchangeMove createMove(CrewPlan plan, Task task, int option) {
+            int successorCount = task.instance.successorCount(task.id);
+            if (option >= successorCount) {
+                Crew otherCrew = plan.getCrews().get(option - successorCount);
+                return new TailExchangeMove(task.getCrew(), task.getIndex(), otherCrew, otherCrew.getTasks().size() - 1);
+            }
+            Task successor = plan.getTasks().get(task.instance.successor(task.id, option));
+            return new TailExchangeMove(task.getCrew(), task.getIndex(), successor.getCrew(), successor.getIndex() - 1);
+        }
+    }
+
+    /**
+     * Creates a move for every option of every task, in order.
+     * The moves are created lazily, as the positions of the tasks are read when a move is created.
+     */
+    private static final class TaskOptionIterator<Move_> implements Iterator<Move_> {
+        private final List<Task> tasks;
+        private final ToIntFunction<Task> optionCount;
+        private final BiFunction<Task, Integer, Move_> moveFactory;
+        private int taskIndex = 0;
+        private int option = 0;
+
+        TaskOptionIterator(List<Task> tasks, ToIntFunction<Task> optionCount, BiFunction<Task, Integer, Move_> moveFactory) {
+            this.tasks = tasks;
+            this.optionCount = optionCount;
+            this.moveFactory = moveFactory;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (taskIndex < tasks.size() && option >= optionCount.applyAsInt(tasks.get(taskIndex))) {
+                taskIndex++;
+                option = 0;
+            }
+            return taskIndex < tasks.size();
+        }
+
+        @Override
+        public Move_ next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return moveFactory.apply(tasks.get(taskIndex), option++);
+        }
+    }
+
+    /**
+     * Exchanges the tasks after the cut index of one crew with the tasks after the cut index of another crew.
+     * A cut index of -1 exchanges all tasks of that crew.
+     * Only doable if both crews can still do their tasks one after the other.
+     */
+    public static class TailExchangeMove extends AbstractMove<CrewPlan> {
+        private final Crew crew;
+        private final int cutIndex;
+        private final Crew otherCrew;
+        private final int otherCutIndex;
+        // The first task after each cut, they get another previous task
+        private final List<Task> firstTailTasks = new ArrayList<>(2);
+
+        public TailExchangeMove(Crew crew, int cutIndex, Crew otherCrew, int otherCutIndex) {
+            this.crew = crew;
+            this.cutIndex = cutIndex;
+            this.otherCrew = otherCrew;
+            this.otherCutIndex = otherCutIndex;
+            if (cutIndex < crew.getTasks().size() - 1) {
+                firstTailTasks.add(crew.getTasks().get(cutIndex + 1));
+            }
+            if (otherCutIndex < otherCrew.getTasks().size() - 1) {
+                firstTailTasks.add(otherCrew.getTasks().get(otherCutIndex + 1));
+            }
+        }
+
+        @Override
+        public boolean isMoveDoable(ScoreDirector<CrewPlan> scoreDirector) {
+            List<Task> tasks = crew.getTasks();
+            List<Task> otherTasks = otherCrew.getTasks();
+            boolean hasTail = cutIndex < tasks.size() - 1;
+            boolean otherHasTail = otherCutIndex < otherTasks.size() - 1;
+            // Exchanging all tasks of both crews changes nothing
+            if (crew == otherCrew || (!hasTail && !otherHasTail) || (cutIndex < 0 && otherCutIndex < 0)) {
+                return false;
+            }
+            return (cutIndex < 0 || !otherHasTail || canFollow(tasks.get(cutIndex), otherTasks.get(otherCutIndex + 1)))
+                    && (otherCutIndex < 0 || !hasTail || canFollow(otherTasks.get(otherCutIndex), tasks.get(cutIndex + 1)));
+        }
+
+        @Override
+        protected void doMoveOnGenuineVariables(ScoreDirector<CrewPlan> scoreDirector) {
+            List<Task> tasks = crew.getTasks();
+            List<Task> otherTasks = otherCrew.getTasks();
+            scoreDirector.beforeListVariableChanged(crew, "tasks", cutIndex + 1, tasks.size());
+            scoreDirector.beforeListVariableChanged(otherCrew, "tasks", otherCutIndex + 1, otherTasks.size());
+            List<Task> tail = tasks.subList(cutIndex + 1, tasks.size());
+            List<Task> otherTail = otherTasks.subList(otherCutIndex + 1, otherTasks.size());
+            List<Task> movedTail = new ArrayList<>(tail);
+            tail.clear();
+            tail.addAll(otherTail);
+            otherTail.clear();
+            otherTail.addAll(movedTail);
+            scoreDirector.afterListVariableChanged(crew, "tasks", cutIndex + 1, tasks.size());
+            scoreDirector.afterListVariableChanged(otherCrew, "tasks", otherCutIndex + 1, otherTasks.size());
+        }
+
+        @Override
+        public Collection<Crew> getPlanningEntities() {
+            return List.of(crew, otherCrew);
+        }
+
+        @Override
+        public Collection<Task> getPlanningValues() {
+            return firstTailTasks;
+        }
+
+        @Override
+        public String toString() {
+            return "Exchange the tasks after " + crew + "[" + cutIndex + "] and " + otherCrew + "[" + otherCutIndex + "]";
+        }
+    }
+
+    private static boolean canFollow(Task task, Task nextTask) {
+        return task.instance.hasTransition(task.id, nextTask.id);
+    }
+}
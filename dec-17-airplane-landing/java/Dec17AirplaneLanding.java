@@ -0,0 +1,623 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+/// This file requires Jbang to run it.
+//DEPS ai.timefold.solver:timefold-solver-core:1.16.0
+//SOURCES ../../shared/java/InstanceReader.java
+//SOURCES ../../shared/java/SolverOptions.java
+
+import ai.timefold.solver.core.api.domain.entity.PlanningEntity;
+import ai.timefold.solver.core.api.domain.entity.PlanningPinToIndex;
+import ai.timefold.solver.core.api.domain.lookup.PlanningId;
+import ai.timefold.solver.core.api.domain.solution.PlanningEntityCollectionProperty;
+import ai.timefold.solver.core.api.domain.solution.PlanningEntityProperty;
+import ai.timefold.solver.core.api.domain.solution.PlanningScore;
+import ai.timefold.solver.core.api.domain.solution.PlanningSolution;
+import ai.timefold.solver.core.api.domain.valuerange.ValueRangeProvider;
+import ai.timefold.solver.core.api.domain.variable.CascadingUpdateShadowVariable;
+import ai.timefold.solver.core.api.domain.variable.InverseRelationShadowVariable;
+import ai.timefold.solver.core.api.domain.variable.NextElementShadowVariable;
+import ai.timefold.solver.core.api.domain.variable.PlanningListVariable;
+import ai.timefold.solver.core.api.domain.variable.PreviousElementShadowVariable;
+import ai.timefold.solver.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
+import ai.timefold.solver.core.api.score.stream.Constraint;
+import ai.timefold.solver.core.api.score.stream.ConstraintFactory;
+import ai.timefold.solver.core.api.score.stream.ConstraintProvider;
+import ai.timefold.solver.core.api.solver.SolverJob;
+import ai.timefold.solver.core.api.solver.SolverManager;
+import ai.timefold.solver.core.api.solver.SolverStatus;
+import ai.timefold.solver.core.api.solver.change.ProblemChange;
+import ai.timefold.solver.core.api.solver.change.ProblemChangeDirector;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+public class Dec17AirplaneLanding {
+
+    /**
+     * In rolling horizon mode, the clock advances this many minutes per replan.
+     */
+    private static final int CLOCK_STEP = 30;
+    private static final long REPLAN_INTERVAL_MILLIS = 1000L;
+
+    public static void main(String... args) {
+        // The instance can be passed as first argument, defaults to the one of this challenge
+        // --rolling-horizon replans every second while the planes appear on the radar and land
+        SolverOptions options = SolverOptions.parse(args, "../instance.txt", "rolling-horizon");
+        LandingInstance instance = LandingInstance.read(options.getInstanceFile());
+
+        LandingSchedule solution;
+        if (options.hasFlag("rolling-horizon")) {
+            solution = solveRollingHorizon(instance, options.applyTo(createSolverConfig()));
+        } else {
+            var result = options.solve(createSolverConfig(), createSchedule(instance), LandingSchedule::getScore);
+            solution = result.bestSolution();
+            System.out.println("Move evaluation speed: " + result.moveEvaluationSpeed() + "/sec");
+        }
+        System.out.println("Score: " + solution.getScore());
+        System.out.printf("Cost: %.2f%n", -solution.getScore().softScore() / 100.0);
+        List<Plane> sequence = solution.getRunway().getPlanes();
+        int[] landingTimes = solution.getRunway().landingTimes();
+        for (int i = 0; i < sequence.size(); i++) {
+            int id = sequence.get(i).getId();
+            System.out.println("Plane " + id + " lands at " + landingTimes[i] + " (target " + instance.targetTime(id) + ")");
+        }
+    }
+
+    public static SolverConfig createSolverConfig() {
+        return new SolverConfig()
+                .withSolutionClass(LandingSchedule.class)
+                .withEntityClasses(Runway.class, Plane.class)
+                .withConstraintProviderClass(LandingConstraintProvider.class)
+                // Stop the solver if no better solution is found for 3 seconds.
+                .withTerminationConfig(new TerminationConfig()
+                        .withUnimprovedSecondsSpentLimit(3L));
+    }
+
+    public static LandingSchedule createSchedule(LandingInstance instance) {
+        var planes = IntStream.range(0, instance.planeCount())
+                .mapToObj(id -> new Plane(id, instance))
+                .toList();
+        return new LandingSchedule(new Runway(), new ArrayList<>(planes));
+    }
+
+    /**
+     * Simulates the day: the clock starts when the first plane appears on the radar and advances {@link #CLOCK_STEP}
+     * minutes every {@link #REPLAN_INTERVAL_MILLIS}. A daemon solver keeps improving the schedule in between.
+     * Every time the clock advances, an {@link AdvanceClockChange} freezes the planes that have landed
+     * and adds the planes that appeared on the radar, so the solver only replans the future.
+     */
+    public static LandingSchedule solveRollingHorizon(LandingInstance instance, SolverConfig solverConfig) {
+        int clock = Arrays.stream(instance.appearanceTimes).min().orElse(0);
+        LandingSchedule schedule = new LandingSchedule(new Runway(), new ArrayList<>());
+        List<Integer> appeared = appearedPlanes(instance, Integer.MIN_VALUE, clock);
+        for (int id : appeared) {
+            schedule.getPlanes().add(new Plane(id, instance));
+        }
+        schedule.getRunway().setClock(clock);
+        int appearedCount = appeared.size();
+
+        // Daemon solvers don't stop when they stop improving, they wait for problem changes instead
+        AtomicReference<LandingSchedule> bestSchedule = new AtomicReference<>();
+        try (SolverManager<LandingSchedule, Long> solverManager = SolverManager.create(solverConfig.withDaemon(true))) {
+            SolverJob<LandingSchedule, Long> solverJob = solverManager.solveBuilder()
+                    .withProblemId(1L)
+                    .withProblem(schedule)
+                    .withBestSolutionConsumer(bestSchedule::set)
+                    .run();
+            while (true) {
+                Thread.sleep(REPLAN_INTERVAL_MILLIS);
+                if (solverJob.getSolverStatus() == SolverStatus.NOT_SOLVING) {
+                    // The solver failed, getFinalBestSolution() throws its exception
+                    break;
+                }
+                LandingSchedule best = bestSchedule.get();
+                int now = clock;
+                if (best != null) {
+                    System.out.printf("Clock %d: %d of %d planes on the radar, %d landed, score %s%n", clock,
+                            appearedCount, instance.planeCount(), best.getRunway().getLandedCount(), best.getScore());
+                    if (appearedCount == instance.planeCount() && best.getRunway().getPlanes().size() == appearedCount
+                            && Arrays.stream(best.getRunway().landingTimes()).allMatch(time -> time <= now)) {
+                        break;
+                    }
+                }
+                int previousClock = clock;
+                clock += CLOCK_STEP;
+                List<Integer> newPlanes = appearedPlanes(instance, previousClock, clock);
+                appearedCount += newPlanes.size();
+                solverManager.addProblemChange(1L, new AdvanceClockChange(clock, newPlanes));
+            }
+            solverManager.terminateEarly(1L);
+            return solverJob.getFinalBestSolution();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Solving was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Solving failed.", e.getCause());
+        }
+    }
+
+    /**
+     * @return the ids of the planes that appear on the radar after from, until to (inclusive)
+     */
+    private static List<Integer> appearedPlanes(LandingInstance instance, int from, int to) {
+        return IntStream.range(0, instance.planeCount())
+                .filter(id -> instance.appearanceTimes[id] > from && instance.appearanceTimes[id] <= to)
+                .boxed()
+                .toList();
+    }
+
+    /**
+     * Times and penalties per plane in flat arrays, indexed by plane id,
+     * and the separation times as a flat matrix: {@code separations[first * planeCount + second]}.
+     * The penalties are kept in hundredths, so the score stays a long.
+     */
+    public static final class LandingInstance {
+        private final int[] appearanceTimes;
+        private final int[] earliestTimes;
+        private final int[] targetTimes;
+        private final int[] latestTimes;
+        private final long[] earlinessPenalties;
+        private final long[] latenessPenalties;
+        private final int[] separations;
+
+        private LandingInstance(int[] appearanceTimes, int[] earliestTimes, int[] targetTimes, int[] latestTimes,
+                long[] earlinessPenalties, long[] latenessPenalties, int[] separations) {
+            this.appearanceTimes = appearanceTimes;
+            this.earliestTimes = earliestTimes;
+            this.targetTimes = targetTimes;
+            this.latestTimes = latestTimes;
+            this.earlinessPenalties = earlinessPenalties;
+            this.latenessPenalties = latenessPenalties;
+            this.separations = separations;
+        }
+
+        /**
+         * Reads the number of planes, then per plane its appearance, earliest, target and latest landing time,
+         * the penalties per minute before and after the target and its row of the separation matrix.
+         */
+        public static LandingInstance read(Path instanceFile) {
+            try (InstanceReader reader = InstanceReader.open(instanceFile)) {
+                int planeCount = reader.nextInt();
+                // The OR-Library format also gives the freeze time on the first line
+                while (reader.hasNextOnLine()) {
+                    reader.nextWord();
+                }
+                int[] appearanceTimes = new int[planeCount];
+                int[] earliestTimes = new int[planeCount];
+                int[] targetTimes = new int[planeCount];
+                int[] latestTimes = new int[planeCount];
+                long[] earlinessPenalties = new long[planeCount];
+                long[] latenessPenalties = new long[planeCount];
+                int[] separations = new int[planeCount * planeCount];
+                for (int plane = 0; plane < planeCount; plane++) {
+                    appearanceTimes[plane] = reader.nextInt();
+                    earliestTimes[plane] = reader.nextInt();
+                    targetTimes[plane] = reader.nextInt();
+                    latestTimes[plane] = reader.nextInt();
+                    earlinessPenalties[plane] = Math.round(100.0 * reader.nextDouble());
+                    latenessPenalties[plane] = Math.round(100.0 * reader.nextDouble());
+                    for (int other = 0; other < planeCount; other++) {
+                        separations[plane * planeCount + other] = reader.nextInt();
+                    }
+                }
+                checkTriangleInequality(planeCount, separations);
+                return new LandingInstance(appearanceTimes, earliestTimes, targetTimes, latestTimes,
+                        earlinessPenalties, latenessPenalties, separations);
+            }
+        }
+
+        /**
+         * The landing profiles only keep the separation with the previous plane.
+         * With the triangle inequality, that also keeps the separation with the planes before it.
+         */
+        private static void checkTriangleInequality(int planeCount, int[] separations) {
+            for (int first = 0; first < planeCount; first++) {
+                for (int second = 0; second < planeCount; second++) {
+                    for (int third = 0; third < planeCount; third++) {
+                        if (first != second && second != third && first != third
+                                && separations[first * planeCount + third] > separations[first * planeCount + second]
+                                + separations[second * planeCount + third]) {
+                            System.out.println("Warning: the separations don't respect the triangle inequality"
+                                    + " (planes " + first + ", " + second + " and " + third + "),"
+                                    + " only the separation with the previous plane is kept.");
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+
+        public int planeCount() {
+            return appearanceTimes.length;
+        }
+
+        public int earliestTime(int plane) {
+            return earliestTimes[plane];
+        }
+
+        public int targetTime(int plane) {
+            return targetTimes[plane];
+        }
+
+        public int latestTime(int plane) {
+            return latestTimes[plane];
+        }
+
+        /**
+         * @return the minutes the second plane has to wait after the first one has landed
+         */
+        public int separation(int first, int second) {
+            return separations[first * appearanceTimes.length + second];
+        }
+
+        /**
+         * @return the penalty in hundredths
+         */
+        public long cost(int plane, int landingTime) {
+            int target = targetTimes[plane];
+            return landingTime < target
+                    ? (target - landingTime) * earlinessPenalties[plane]
+                    : (landingTime - target) * latenessPenalties[plane];
+        }
+    }
+
+    /**
+     * A plane in the landing sequence. The shadow variables give every plane its neighbours in the sequence.
+     * <p>
+     * When a plane should land early depends on the planes after it, so its landing time can't be a cascading update.
+     * The landing profile is: it depends only on the planes before it in the sequence.
+     * After a move, Timefold recalculates the profiles from the changed position onward
+     * and stops at the first plane whose profile doesn't change, instead of redoing the whole sequence.
+     * The landing times are read back from the profiles, from the last plane to the first ({@link Runway#landingTimes()}).
+     */
+    @PlanningEntity
+    public static class Plane {
+        @PlanningId
+        private Integer id;
+        private LandingInstance instance;
+        /**
+         * Set once the plane has landed in rolling horizon mode, it never changes after that.
+         */
+        private Integer fixedLandingTime;
+
+        @InverseRelationShadowVariable(sourceVariableName = "planes")
+        private Runway runway;
+        @PreviousElementShadowVariable(sourceVariableName = "planes")
+        private Plane previousPlane;
+        @NextElementShadowVariable(sourceVariableName = "planes")
+        private Plane nextPlane;
+        @CascadingUpdateShadowVariable(targetMethodName = "updateLandingProfile")
+        private LandingProfile landingProfile;
+
+        public Plane() {
+        }
+
+        public Plane(int id, LandingInstance instance) {
+            this.id = id;
+            this.instance = instance;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public Runway getRunway() {
+            return runway;
+        }
+
+        public Plane getPreviousPlane() {
+            return previousPlane;
+        }
+
+        public Plane getNextPlane() {
+            return nextPlane;
+        }
+
+        public LandingProfile getLandingProfile() {
+            return landingProfile;
+        }
+
+        public Integer getFixedLandingTime() {
+            return fixedLandingTime;
+        }
+
+        public void setFixedLandingTime(Integer fixedLandingTime) {
+            this.fixedLandingTime = fixedLandingTime;
+        }
+
+        /**
+         * A plane can land from its earliest time, but not before the clock, nor before the separation
+         * after the earliest landing of the previous plane. It can land after its latest time, at a hard cost per minute,
+         * so every sequence has a landing schedule. A plane that has landed keeps its landing time.
+         */
+        public void updateLandingProfile() {
+            if (runway == null) {
+                landingProfile = null;
+                return;
+            }
+            int separation = previousPlane == null ? 0 : instance.separation(previousPlane.id, id);
+            int firstTime;
+            int lastTime;
+            if (fixedLandingTime != null) {
+                firstTime = fixedLandingTime;
+                lastTime = fixedLandingTime;
+            } else {
+                firstTime = Math.max(instance.earliestTime(id), runway.getClock());
+                if (previousPlane != null) {
+                    firstTime = Math.max(firstTime, previousPlane.landingProfile.firstTime() + separation);
+                }
+                lastTime = Math.max(instance.latestTime(id), firstTime);
+            }
+            long[] costs = new long[lastTime - firstTime + 1];
+            for (int i = 0; i < costs.length; i++) {
+                int time = firstTime + i;
+                costs[i] = instance.cost(id, time)
+                        + Math.max(0, time - instance.latestTime(id)) * LandingProfile.MINUTE_LATE_COST;
+                if (previousPlane != null) {
+                    costs[i] += previousPlane.landingProfile.bestCostUntil(time - separation);
+                }
+            }
+            landingProfile = LandingProfile.of(firstTime, costs);
+        }
+
+        @Override
+        public String toString() {
+            return "Plane " + id;
+        }
+    }
+
+    /**
+     * For every landing time of a plane, from its first to its last possible time,
+     * the lowest cost of the sequence until that plane if it lands at that time or earlier,
+     * and the time it lands at for that cost.
+     * A dynamic program over the sequence: the profile of a plane only needs the profile of the previous one.
+     * Landing times are whole minutes, which loses nothing: with the separations as differences between landing times,
+     * there is always an optimal schedule in whole minutes.
+     * <p>
+     * The cost is in hundredths, every minute after the latest time adds {@link #MINUTE_LATE_COST},
+     * so it can hold the hard and the soft score together.
+     * Only the separation with the previous plane is taken into account,
+     * which is enough when the separations respect the triangle inequality ({@link LandingInstance#read(Path)} warns if not).
+     */
+    public record LandingProfile(int firstTime, long[] bestCosts, int[] bestTimes) {
+
+        static final long MINUTE_LATE_COST = 1_000_000_000_000L;
+
+        static LandingProfile of(int firstTime, long[] costs) {
+            long[] bestCosts = new long[costs.length];
+            int[] bestTimes = new int[costs.length];
+            for (int i = 0; i < costs.length; i++) {
+                if (i == 0 || costs[i] < bestCosts[i - 1]) {
+                    bestCosts[i] = costs[i];
+                    bestTimes[i] = firstTime + i;
+                } else {
+                    bestCosts[i] = bestCosts[i - 1];
+                    bestTimes[i] = bestTimes[i - 1];
+                }
+            }
+            return new LandingProfile(firstTime, bestCosts, bestTimes);
+        }
+
+        /**
+         * @param time at least {@link #firstTime()}
+         */
+        public long bestCostUntil(int time) {
+            return bestCosts[Math.min(time - firstTime, bestCosts.length - 1)];
+        }
+
+        public int bestTimeUntil(int time) {
+            return bestTimes[Math.min(time - firstTime, bestTimes.length - 1)];
+        }
+
+        public int bestTime() {
+            return bestTimes[bestTimes.length - 1];
+        }
+
+        public long minutesLate() {
+            return bestCosts[bestCosts.length - 1] / MINUTE_LATE_COST;
+        }
+
+        /**
+         * @return the penalty in hundredths
+         */
+        public long cost() {
+            return bestCosts[bestCosts.length - 1] % MINUTE_LATE_COST;
+        }
+
+        // The cascading update stops at the first plane whose profile is equal to its previous one
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof LandingProfile other && firstTime == other.firstTime
+                    && Arrays.equals(bestCosts, other.bestCosts) && Arrays.equals(bestTimes, other.bestTimes);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * firstTime + Arrays.hashCode(bestCosts);
+        }
+
+        @Override
+        public String toString() {
+            return "LandingProfile " + firstTime + ".." + (firstTime + bestCosts.length - 1);
+        }
+    }
+
+    @PlanningEntity
+    public static class Runway {
+        // The rolling horizon's AdvanceClockChange changes the runway, which Timefold looks up by this id
+        @PlanningId
+        private Integer id = 1;
+        @PlanningListVariable
+        private List<Plane> planes;
+        /**
+         * The planes that have landed, at the start of the list, can't move anymore.
+         */
+        @PlanningPinToIndex
+        private int landedCount;
+        private int clock = Integer.MIN_VALUE;
+
+        public Runway() {
+            this.planes = new ArrayList<>();
+        }
+
+        public List<Plane> getPlanes() {
+            return planes;
+        }
+
+        public void setPlanes(List<Plane> planes) {
+            this.planes = planes;
+        }
+
+        public int getLandedCount() {
+            return landedCount;
+        }
+
+        public void setLandedCount(int landedCount) {
+            this.landedCount = landedCount;
+        }
+
+        /**
+         * @return the current time in rolling horizon mode, no plane can land before it anymore
+         */
+        public int getClock() {
+            return clock;
+        }
+
+        public void setClock(int clock) {
+            this.clock = clock;
+        }
+
+        /**
+         * The last plane lands at the best time of its profile,
+         * every plane before it at the best time of its own profile that keeps the separation with the plane after it.
+         *
+         * @return the landing time of every plane, in the order of {@link #getPlanes()}
+         */
+        public int[] landingTimes() {
+            int[] landingTimes = new int[planes.size()];
+            for (int i = planes.size() - 1; i >= 0; i--) {
+                Plane plane = planes.get(i);
+                LandingProfile profile = plane.getLandingProfile();
+                if (i == planes.size() - 1) {
+                    landingTimes[i] = profile.bestTime();
+                } else {
+                    Plane next = planes.get(i + 1);
+                    int separation = plane.instance.separation(plane.id, next.id);
+                    landingTimes[i] = profile.bestTimeUntil(landingTimes[i + 1] - separation);
+                }
+            }
+            return landingTimes;
+        }
+    }
+
+    @PlanningSolution
+    public static class LandingSchedule {
+        @PlanningEntityProperty
+        private Runway runway;
+
+        @PlanningEntityCollectionProperty
+        @ValueRangeProvider
+        private List<Plane> planes;
+
+        @PlanningScore
+        private HardSoftLongScore score;
+
+        public LandingSchedule() {
+        }
+
+        public LandingSchedule(Runway runway, List<Plane> planes) {
+            this.runway = runway;
+            this.planes = planes;
+        }
+
+        public Runway getRunway() {
+            return runway;
+        }
+
+        public List<Plane> getPlanes() {
+            return planes;
+        }
+
+        public HardSoftLongScore getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * Advances the clock: freezes the planes that have landed by then and adds the planes that appeared on the radar.
+     * The landed planes keep their landing time and stay at the start of the sequence ({@link Runway#getLandedCount()}).
+     */
+    public record AdvanceClockChange(int clock, List<Integer> newPlaneIds) implements ProblemChange<LandingSchedule> {
+
+        @Override
+        public void doChange(LandingSchedule workingSolution, ProblemChangeDirector problemChangeDirector) {
+            Runway runway = workingSolution.getRunway();
+            List<Plane> sequence = runway.getPlanes();
+            int[] landingTimes = runway.landingTimes();
+            int landedCount = runway.getLandedCount();
+            // The landing times increase along the sequence, so the landed planes are always at its start
+            while (landedCount < sequence.size() && landingTimes[landedCount] <= clock) {
+                int landingTime = landingTimes[landedCount];
+                Plane plane = sequence.get(landedCount++);
+                problemChangeDirector.changeProblemProperty(plane, p -> p.setFixedLandingTime(landingTime));
+            }
+            int newLandedCount = landedCount;
+            problemChangeDirector.changeProblemProperty(runway, r -> {
+                r.setLandedCount(newLandedCount);
+                r.setClock(clock);
+            });
+            // The cascading update only follows changes to the sequence, not to the clock or the landed planes
+            for (Plane plane : sequence) {
+                problemChangeDirector.changeProblemProperty(plane, Plane::updateLandingProfile);
+            }
+            LandingInstance instance = workingSolution.getPlanes().isEmpty() ? null
+                    : workingSolution.getPlanes().get(0).instance;
+            for (int id : newPlaneIds) {
+                if (instance == null) {
+                    throw new IllegalStateException("The schedule has no planes to take the instance from.");
+                }
+                problemChangeDirector.addEntity(new Plane(id, instance), workingSolution.getPlanes()::add);
+            }
+        }
+    }
+
+    public static class LandingConstraintProvider implements ConstraintProvider {
+
+        @Override
+        public Constraint[] defineConstraints(ConstraintFactory factory) {
+            return new Constraint[]{
+                    landBeforeLatestTime(factory),
+                    minimizeDeviationCost(factory)
+            };
+        }
+
+        /**
+         * Creates a constraint which will reduce the HARD score by 1 for each minute a plane lands after its latest time.
+         * The profile of the last plane holds the whole sequence.
+         */
+        Constraint landBeforeLatestTime(ConstraintFactory factory) {
+            return factory.forEach(Plane.class)
+                    .filter(plane -> plane.getNextPlane() == null && plane.getLandingProfile() != null)
+                    .filter(plane -> plane.getLandingProfile().minutesLate() > 0)
+                    .penalizeLong(HardSoftLongScore.ONE_HARD, plane -> plane.getLandingProfile().minutesLate())
+                    .asConstraint("landBeforeLatestTime");
+        }
+
+        /**
+         * Creates a constraint which will reduce the SOFT score by the penalty (in hundredths)
+         * for landing before or after the target time, over the whole sequence.
+         */
+        Constraint minimizeDeviationCost(ConstraintFactory factory) {
+            return factory.forEach(Plane.class)
+                    .filter(plane -> plane.getNextPlane() == null && plane.getLandingProfile() != null)
+                    .penalizeLong(HardSoftLongScore.ONE_SOFT, plane -> plane.getLandingProfile().cost())
+                    .asConstraint("minimizeDeviationCost");
+        }
+    }
+}
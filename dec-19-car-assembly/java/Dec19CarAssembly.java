@@ -0,0 +1,594 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+/// This file requires Jbang to run it.
+//DEPS ai.timefold.solver:timefold-solver-core:1.16.0
+//SOURCES ../../shared/java/InstanceReader.java
+//SOURCES ../../shared/java/SolverOptions.java
+
+import ai.timefold.solver.core.api.domain.entity.PlanningEntity;
+import ai.timefold.solver.core.api.domain.lookup.PlanningId;
+import ai.timefold.solver.core.api.domain.solution.PlanningEntityProperty;
+import ai.timefold.solver.core.api.domain.solution.PlanningScore;
+import ai.timefold.solver.core.api.domain.solution.PlanningSolution;
+import ai.timefold.solver.core.api.domain.solution.ProblemFactCollectionProperty;
+import ai.timefold.solver.core.api.domain.valuerange.ValueRangeProvider;
+import ai.timefold.solver.core.api.domain.variable.PlanningListVariable;
+import ai.timefold.solver.core.api.score.buildin.simplelong.SimpleLongScore;
+import ai.timefold.solver.core.api.score.calculator.EasyScoreCalculator;
+import ai.timefold.solver.core.api.score.director.ScoreDirector;
+import ai.timefold.solver.core.config.heuristic.selector.move.composite.UnionMoveSelectorConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.factory.MoveIteratorFactoryConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.generic.list.ListSwapMoveSelectorConfig;
+import ai.timefold.solver.core.config.localsearch.LocalSearchPhaseConfig;
+import ai.timefold.solver.core.config.phase.custom.CustomPhaseConfig;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+import ai.timefold.solver.core.impl.heuristic.move.AbstractMove;
+import ai.timefold.solver.core.impl.heuristic.selector.move.factory.MoveIteratorFactory;
+import ai.timefold.solver.core.impl.phase.custom.CustomPhaseCommand;
+import org.jspecify.annotations.NonNull;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class Dec19CarAssembly {
+
+    /**
+     * The best known makespan of the car and reC instances of the collection.
+     */
+    static final Map<String, Integer> BEST_KNOWN_MAKESPANS = Map.ofEntries(
+            Map.entry("car1", 7038), Map.entry("car2", 7166), Map.entry("car3", 7312), Map.entry("car4", 8003),
+            Map.entry("car5", 7720), Map.entry("car6", 8505), Map.entry("car7", 6590), Map.entry("car8", 8366),
+            Map.entry("reC01", 1247), Map.entry("reC03", 1109), Map.entry("reC05", 1242), Map.entry("reC07", 1566),
+            Map.entry("reC09", 1537), Map.entry("reC11", 1431), Map.entry("reC13", 1930), Map.entry("reC15", 1950),
+            Map.entry("reC17", 1902), Map.entry("reC19", 2093), Map.entry("reC21", 2017), Map.entry("reC23", 2011),
+            Map.entry("reC25", 2513), Map.entry("reC27", 2373), Map.entry("reC29", 2287), Map.entry("reC31", 3045),
+            Map.entry("reC33", 3114), Map.entry("reC35", 3277), Map.entry("reC37", 4951), Map.entry("reC39", 5087),
+            Map.entry("reC41", 4960));
+
+    private static final String DEFAULT_INSTANCE_NAME = "reC41";
+
+    public static void main(String... args) {
+        // Pick the instance of the collection with --instance=<name>, the other arguments are the usual solver options
+        SolverOptions options = SolverOptions.parse(args, "../instance.txt", "instance=");
+        String name = options.getOption("instance", DEFAULT_INSTANCE_NAME);
+        FlowShopInstance instance = readInstances(options.getInstanceFile()).stream()
+                .filter(candidate -> candidate.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("The instance (" + name + ") isn't in the collection."));
+
+        var result = options.solve(createSolverConfig(), createSchedule(instance), AssemblySchedule::getScore);
+        AssemblySchedule solution = result.bestSolution();
+        System.out.println("Instance: " + instance.name() + " (" + instance.jobCount() + " cars, "
+                + instance.machineCount() + " machines)");
+        System.out.println("Score: " + solution.getScore());
+        Integer bestKnown = BEST_KNOWN_MAKESPANS.get(instance.name());
+        if (bestKnown != null) {
+            System.out.printf("Gap to the best known makespan of %d: %.2f%%%n", bestKnown,
+                    100.0 * (-solution.getScore().score() - bestKnown) / bestKnown);
+        }
+        List<Integer> sequence = solution.getAssemblyLine().getCars().stream().map(Car::getId).toList();
+        System.out.println("Sequence: " + sequence);
+        System.out.println("Move evaluation speed: " + result.moveEvaluationSpeed() + "/sec");
+    }
+
+    public static SolverConfig createSolverConfig() {
+        return new SolverConfig()
+                .withSolutionClass(AssemblySchedule.class)
+                .withEntityClasses(AssemblyLine.class)
+                .withEasyScoreCalculatorClass(MakespanCalculator.class)
+                // Stop the solver if no better solution is found for 5 seconds.
+                .withTerminationConfig(new TerminationConfig()
+                        .withUnimprovedSecondsSpentLimit(5L))
+                .withPhases(new CustomPhaseConfig()
+                                .withCustomPhaseCommandClassList(List.of(NehCommand.class)),
+                        new LocalSearchPhaseConfig()
+                                .withMoveSelectorConfig(new UnionMoveSelectorConfig()
+                                        .withMoveSelectors(new MoveIteratorFactoryConfig()
+                                                        .withMoveIteratorFactoryClass(BestReinsertionMoveIteratorFactory.class),
+                                                new ListSwapMoveSelectorConfig())));
+    }
+
+    /**
+     * Reads every instance of the OR-Library collection,
+     * with {@code <machine> <processing time>} per step of each job after the job and machine count.
+     */
+    public static List<FlowShopInstance> readInstances(Path collectionFile) {
+        return InstanceReader.readCollection(collectionFile, FlowShopInstance::read);
+    }
+
+    public static AssemblySchedule createSchedule(FlowShopInstance instance) {
+        var cars = IntStream.range(0, instance.jobCount())
+                .mapToObj(Car::new)
+                .toList();
+        return new AssemblySchedule(instance, new AssemblyLine(), cars);
+    }
+
+    /**
+     * Every job visits the machines in the same order, 0 first.
+     * {@code processingTimes} is a flat array: {@code job * machineCount + machine}.
+     */
+    public record FlowShopInstance(String name, int jobCount, int machineCount, int[] processingTimes) {
+
+        static FlowShopInstance read(String name, InstanceReader reader) {
+            int jobCount = reader.nextInt();
+            int machineCount = reader.nextInt();
+            int[] processingTimes = new int[jobCount * machineCount];
+            for (int job = 0; job < jobCount; job++) {
+                for (int step = 0; step < machineCount; step++) {
+                    int machine = reader.nextInt();
+                    if (machine != step) {
+                        throw new IllegalStateException("Job (" + job + ") of the instance (" + name
+                                + ") visits machine (" + machine + ") as step (" + step
+                                + "), but a flow shop visits the machines in order.");
+                    }
+                    processingTimes[job * machineCount + machine] = reader.nextInt();
+                }
+            }
+            return new FlowShopInstance(name, jobCount, machineCount, processingTimes);
+        }
+
+        public int processingTime(int job, int machine) {
+            return processingTimes[job * machineCount + machine];
+        }
+
+        public int totalProcessingTime(int job) {
+            int total = 0;
+            for (int machine = 0; machine < machineCount; machine++) {
+                total += processingTime(job, machine);
+            }
+            return total;
+        }
+
+        /**
+         * @return the time the last job of the sequence leaves the last machine, in O(length * machines)
+         */
+        public long makespan(int[] sequence, int length) {
+            long[] completionTimes = new long[machineCount];
+            for (int i = 0; i < length; i++) {
+                long previousMachine = 0L;
+                for (int machine = 0; machine < machineCount; machine++) {
+                    previousMachine = Math.max(previousMachine, completionTimes[machine])
+                            + processingTime(sequence[i], machine);
+                    completionTimes[machine] = previousMachine;
+                }
+            }
+            return length == 0 ? 0L : completionTimes[machineCount - 1];
+        }
+    }
+
+    /**
+     * Taillard's acceleration: finds the best position to insert a job into a sequence in O(length * machines),
+     * instead of calculating the makespan for every position, which takes O(length² * machines).
+     * <ul>
+     *     <li>The heads: when the i-th job of the sequence can leave each machine at the earliest.</li>
+     *     <li>The tails: how long it takes from the start of the i-th job on each machine until the end.</li>
+     * </ul>
+     * The makespan with the job inserted before the i-th job is then the maximum over the machines of
+     * the completion time of the inserted job on that machine plus the tail of the i-th job from that machine.
+     * The arrays are reused, so an instance isn't thread-safe.
+     */
+    public static final class TaillardInsertion {
+        private final FlowShopInstance instance;
+        private final int machineCount;
+        // Row i (0 to length + 1) of machineCount + 2 columns, so the borders are 0 without checks
+        private final long[] heads;
+        private final long[] tails;
+        private final long[] insertedCompletionTimes;
+        private long bestMakespan;
+
+        public TaillardInsertion(FlowShopInstance instance) {
+            this.instance = instance;
+            this.machineCount = instance.machineCount();
+            int size = (instance.jobCount() + 2) * (machineCount + 2);
+            this.heads = new long[size];
+            this.tails = new long[size];
+            this.insertedCompletionTimes = new long[machineCount + 2];
+        }
+
+        /**
+         * @param sequence the jobs without the job to insert
+         * @param length the number of jobs in the sequence
+         * @param excludedPosition a position that isn't allowed, -1 if all are allowed
+         * @return the position (0 to length) for the job with the lowest makespan, the first one on a tie
+         */
+        public int bestPosition(int[] sequence, int length, int job, int excludedPosition) {
+            int width = machineCount + 2;
+            for (int machine = 0; machine < width; machine++) {
+                heads[machine] = 0L;
+                tails[(length + 1) * width + machine] = 0L;
+            }
+            for (int i = 1; i <= length; i++) {
+                int row = i * width;
+                heads[row] = 0L;
+                for (int machine = 1; machine <= machineCount; machine++) {
+                    heads[row + machine] = Math.max(heads[row - width + machine], heads[row + machine - 1])
+                            + instance.processingTime(sequence[i - 1], machine - 1);
+                }
+            }
+            for (int i = length; i >= 1; i--) {
+                int row = i * width;
+                tails[row + machineCount + 1] = 0L;
+                for (int machine = machineCount; machine >= 1; machine--) {
+                    tails[row + machine] = Math.max(tails[row + width + machine], tails[row + machine + 1])
+                            + instance.processingTime(sequence[i - 1], machine - 1);
+                }
+            }
+            int bestPosition = -1;
+            bestMakespan = Long.MAX_VALUE;
+            for (int position = 0; position <= length; position++) {
+                if (position == excludedPosition) {
+                    continue;
+                }
+                // Inserted after the job in row position, before the job in row position + 1
+                int headRow = position * width;
+                int tailRow = (position + 1) * width;
+                long makespan = 0L;
+                insertedCompletionTimes[0] = 0L;
+                for (int machine = 1; machine <= machineCount; machine++) {
+                    insertedCompletionTimes[machine] = Math.max(insertedCompletionTimes[machine - 1],
+                            heads[headRow + machine]) + instance.processingTime(job, machine - 1);
+                    makespan = Math.max(makespan, insertedCompletionTimes[machine] + tails[tailRow + machine]);
+                }
+                if (makespan < bestMakespan) {
+                    bestMakespan = makespan;
+                    bestPosition = position;
+                }
+            }
+            return bestPosition;
+        }
+
+        /**
+         * @return the makespan of the last {@link #bestPosition(int[], int, int, int)}
+         */
+        public long getBestMakespan() {
+            return bestMakespan;
+        }
+    }
+
+    public static class Car {
+        @PlanningId
+        private Integer id;
+
+        public Car() {
+        }
+
+        public Car(int id) {
+            this.id = id;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return "Car " + id;
+        }
+    }
+
+    @PlanningEntity
+    public static class AssemblyLine {
+        @PlanningId
+        private Integer id = 1;
+        @PlanningListVariable
+        private List<Car> cars;
+
+        public AssemblyLine() {
+            this.cars = new ArrayList<>();
+        }
+
+        public List<Car> getCars() {
+            return cars;
+        }
+
+        public void setCars(List<Car> cars) {
+            this.cars = cars;
+        }
+    }
+
+    @PlanningSolution
+    public static class AssemblySchedule {
+        /**
+         * The processing times of every car, a sequence of cars is all the score needs next to it.
+         */
+        private FlowShopInstance instance;
+
+        @PlanningEntityProperty
+        private AssemblyLine assemblyLine;
+
+        @ProblemFactCollectionProperty
+        @ValueRangeProvider
+        private List<Car> cars;
+
+        @PlanningScore
+        private SimpleLongScore score;
+
+        public AssemblySchedule() {
+        }
+
+        public AssemblySchedule(FlowShopInstance instance, AssemblyLine assemblyLine, List<Car> cars) {
+            this.instance = instance;
+            this.assemblyLine = assemblyLine;
+            this.cars = cars;
+        }
+
+        public FlowShopInstance getInstance() {
+            return instance;
+        }
+
+        public AssemblyLine getAssemblyLine() {
+            return assemblyLine;
+        }
+
+        public List<Car> getCars() {
+            return cars;
+        }
+
+        public SimpleLongScore getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * <ul>
+     *     <li>Minimize the makespan: the time the last car leaves the last machine.</li>
+     * </ul>
+     */
+    public static class MakespanCalculator implements EasyScoreCalculator<AssemblySchedule, SimpleLongScore> {
+
+        @Override
+        public @NonNull SimpleLongScore calculateScore(@NonNull AssemblySchedule schedule) {
+            List<Car> cars = schedule.getAssemblyLine().getCars();
+            return SimpleLongScore.of(-schedule.getInstance().makespan(toSequence(cars), cars.size()));
+        }
+    }
+
+    /**
+     * NEH: inserts the cars one by one, the longest total processing time first, each at its best position.
+     * Then reinserts every car at its best position until that doesn't improve the makespan anymore.
+     * Both use {@link TaillardInsertion}.
+     */
+    public static class NehCommand implements CustomPhaseCommand<AssemblySchedule> {
+
+        @Override
+        public void changeWorkingSolution(ScoreDirector<AssemblySchedule> scoreDirector) {
+            AssemblySchedule schedule = scoreDirector.getWorkingSolution();
+            FlowShopInstance instance = schedule.getInstance();
+            AssemblyLine assemblyLine = schedule.getAssemblyLine();
+            List<Car> cars = assemblyLine.getCars();
+            TaillardInsertion insertion = new TaillardInsertion(instance);
+            int[] sequence = new int[instance.jobCount()];
+            int length;
+            boolean complete = cars.size() == schedule.getCars().size();
+            if (complete) {
+                sequence = toSequence(cars);
+                length = sequence.length;
+            } else if (cars.isEmpty()) {
+                length = 0;
+                List<Integer> jobs = IntStream.range(0, instance.jobCount()).boxed()
+                        .sorted(Comparator.comparingInt(instance::totalProcessingTime).reversed())
+                        .toList();
+                for (int job : jobs) {
+                    int position = insertion.bestPosition(sequence, length, job, -1);
+                    insert(sequence, length, job, position);
+                    length++;
+                }
+            } else {
+                throw new IllegalStateException("The assembly line must either be empty or contain all cars, but it has ("
+                        + cars.size() + ") of the (" + schedule.getCars().size() + ") cars.");
+            }
+
+            long makespan = instance.makespan(sequence, length);
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                for (int job = 0; job < instance.jobCount(); job++) {
+                    int position = remove(sequence, length, job);
+                    int bestPosition = insertion.bestPosition(sequence, length - 1, job, -1);
+                    if (insertion.getBestMakespan() < makespan) {
+                        makespan = insertion.getBestMakespan();
+                        improved = true;
+                    } else {
+                        // Keep it where it was, unless the best position is equally good
+                        bestPosition = insertion.getBestMakespan() == makespan ? bestPosition : position;
+                    }
+                    insert(sequence, length - 1, job, bestPosition);
+                }
+            }
+
+            List<Car> carList = schedule.getCars();
+            if (complete) {
+                scoreDirector.beforeListVariableChanged(assemblyLine, "cars", 0, cars.size());
+                for (int i = 0; i < length; i++) {
+                    cars.set(i, carList.get(sequence[i]));
+                }
+                scoreDirector.afterListVariableChanged(assemblyLine, "cars", 0, cars.size());
+            } else {
+                for (int i = 0; i < length; i++) {
+                    Car car = carList.get(sequence[i]);
+                    scoreDirector.beforeListVariableElementAssigned(assemblyLine, "cars", car);
+                    scoreDirector.beforeListVariableChanged(assemblyLine, "cars", i, i);
+                    cars.add(car);
+                    scoreDirector.afterListVariableChanged(assemblyLine, "cars", i, i + 1);
+                    scoreDirector.afterListVariableElementAssigned(assemblyLine, "cars", car);
+                }
+            }
+            scoreDirector.triggerVariableListeners();
+        }
+    }
+
+    /**
+     * Every move takes a car out of the sequence and puts it back at the best other position,
+     * found by {@link TaillardInsertion} for all positions at once.
+     * The move can be worse than the current sequence, the acceptor of the local search decides.
+     */
+    public static class BestReinsertionMoveIteratorFactory
+            implements MoveIteratorFactory<AssemblySchedule, ReinsertionMove> {
+
+        @Override
+        public long getSize(ScoreDirector<AssemblySchedule> scoreDirector) {
+            return scoreDirector.getWorkingSolution().getCars().size();
+        }
+
+        /**
+         * Every car in the order of the sequence.
+         */
+        @Override
+        public Iterator<ReinsertionMove> createOriginalMoveIterator(ScoreDirector<AssemblySchedule> scoreDirector) {
+            BestReinsertion bestReinsertion = new BestReinsertion(scoreDirector.getWorkingSolution());
+            return new Iterator<>() {
+                private int fromIndex = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return bestReinsertion.hasMoves() && fromIndex < bestReinsertion.length();
+                }
+
+                @Override
+                public ReinsertionMove next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return bestReinsertion.createMove(fromIndex++);
+                }
+            };
+        }
+
+        @Override
+        public Iterator<ReinsertionMove> createRandomMoveIterator(ScoreDirector<AssemblySchedule> scoreDirector,
+                Random workingRandom) {
+            BestReinsertion bestReinsertion = new BestReinsertion(scoreDirector.getWorkingSolution());
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return bestReinsertion.hasMoves();
+                }
+
+                @Override
+                public ReinsertionMove next() {
+                    return bestReinsertion.createMove(workingRandom.nextInt(bestReinsertion.length()));
+                }
+            };
+        }
+
+        /**
+         * The sequence is copied when an iterator is created, the moves it creates only reorder that copy.
+         */
+        private static final class BestReinsertion {
+            private final AssemblyLine assemblyLine;
+            private final int[] stepSequence;
+            private final int[] sequence;
+            private final TaillardInsertion insertion;
+
+            BestReinsertion(AssemblySchedule schedule) {
+                assemblyLine = schedule.getAssemblyLine();
+                stepSequence = toSequence(assemblyLine.getCars());
+                sequence = new int[stepSequence.length];
+                insertion = new TaillardInsertion(schedule.getInstance());
+            }
+
+            boolean hasMoves() {
+                return stepSequence.length > 1;
+            }
+
+            int length() {
+                return stepSequence.length;
+            }
+
+            ReinsertionMove createMove(int fromIndex) {
+                int job = stepSequence[fromIndex];
+                System.arraycopy(stepSequence, 0, sequence, 0, fromIndex);
+                System.arraycopy(stepSequence, fromIndex + 1, sequence, fromIndex, stepSequence.length - fromIndex - 1);
+                // Putting it back at its own position wouldn't change anything
+                int toIndex = insertion.bestPosition(sequence, stepSequence.length - 1, job, fromIndex);
+                return new ReinsertionMove(assemblyLine, fromIndex, toIndex);
+            }
+        }
+    }
+
+    /**
+     * Moves the car at one index to another index, shifting the cars in between.
+     */
+    public static class ReinsertionMove extends AbstractMove<AssemblySchedule> {
+        private final AssemblyLine assemblyLine;
+        private final Car car;
+        private final int fromIndex;
+        private final int toIndex;
+
+        public ReinsertionMove(AssemblyLine assemblyLine, int fromIndex, int toIndex) {
+            this.assemblyLine = assemblyLine;
+            // Read now, after the move the car is at the other index
+            this.car = assemblyLine.getCars().get(fromIndex);
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+        }
+
+        @Override
+        public boolean isMoveDoable(ScoreDirector<AssemblySchedule> scoreDirector) {
+            return fromIndex != toIndex;
+        }
+
+        @Override
+        protected void doMoveOnGenuineVariables(ScoreDirector<AssemblySchedule> scoreDirector) {
+            List<Car> cars = assemblyLine.getCars();
+            int from = Math.min(fromIndex, toIndex);
+            int to = Math.max(fromIndex, toIndex) + 1;
+            scoreDirector.beforeListVariableChanged(assemblyLine, "cars", from, to);
+            cars.add(toIndex, cars.remove(fromIndex));
+            scoreDirector.afterListVariableChanged(assemblyLine, "cars", from, to);
+        }
+
+        @Override
+        public Collection<AssemblyLine> getPlanningEntities() {
+            return List.of(assemblyLine);
+        }
+
+        @Override
+        public Collection<Car> getPlanningValues() {
+            return List.of(car);
+        }
+
+        @Override
+        public String toString() {
+            return "Reinsert " + car + " from " + fromIndex + " at " + toIndex;
+        }
+    }
+
+    private static int[] toSequence(List<Car> cars) {
+        int[] sequence = new int[cars.size()];
+        for (int i = 0; i < sequence.length; i++) {
+            sequence[i] = cars.get(i).getId();
+        }
+        return sequence;
+    }
+
+    /**
+     * Inserts the job at the position, shifting the jobs after it.
+     */
+    private static void insert(int[] sequence, int length, int job, int position) {
+        System.arraycopy(sequence, position, sequence, position + 1, length - position);
+        sequence[position] = job;
+    }
+
+    /**
+     * Removes the job, shifting the jobs after it.
+     *
+     * @return the position the job was at
+     */
+    private static int remove(int[] sequence, int length, int job) {
+        int position = 0;
+        while (sequence[position] != job) {
+            position++;
+        }
+        System.arraycopy(sequence, position + 1, sequence, position, length - position - 1);
+        return position;
+    }
+}
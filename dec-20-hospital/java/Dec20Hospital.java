@@ -0,0 +1,294 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+/// This file requires Jbang to run it.
+//DEPS ai.timefold.solver:timefold-solver-core:1.16.0
+//SOURCES ../../shared/java/InstanceReader.java
+//SOURCES ../../shared/java/SolverOptions.java
+
+import ai.timefold.solver.core.api.domain.entity.PlanningEntity;
+import ai.timefold.solver.core.api.domain.lookup.PlanningId;
+import ai.timefold.solver.core.api.domain.solution.PlanningEntityCollectionProperty;
+import ai.timefold.solver.core.api.domain.solution.PlanningScore;
+import ai.timefold.solver.core.api.domain.solution.PlanningSolution;
+import ai.timefold.solver.core.api.domain.solution.ProblemFactCollectionProperty;
+import ai.timefold.solver.core.api.domain.valuerange.ValueRangeProvider;
+import ai.timefold.solver.core.api.domain.variable.PlanningVariable;
+import ai.timefold.solver.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
+import ai.timefold.solver.core.api.score.calculator.IncrementalScoreCalculator;
+import ai.timefold.solver.core.config.constructionheuristic.ConstructionHeuristicPhaseConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.generic.SwapMoveSelectorConfig;
+import ai.timefold.solver.core.config.localsearch.LocalSearchPhaseConfig;
+import ai.timefold.solver.core.config.score.director.ScoreDirectorFactoryConfig;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+import org.jspecify.annotations.NonNull;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class Dec20Hospital {
+
+    public static void main(String... args) {
+        // The instance can be passed as first argument, defaults to the one of this challenge
+        SolverOptions options = SolverOptions.parse(args, "../instance.txt");
+        HospitalLayout layout = createLayoutFromInput(options.getInstanceFile());
+
+        var result = options.solve(createSolverConfig(), layout, HospitalLayout::getScore);
+        HospitalLayout solution = result.bestSolution();
+        System.out.println("Score: " + solution.getScore());
+        List<Integer> locations = solution.getDepartments().stream()
+                .map(department -> department.getLocation().id())
+                .toList();
+        System.out.println("Location per department: " + locations);
+        long optimalCost = solution.getMatrices().optimalCost();
+        long cost = -solution.getScore().softScore();
+        System.out.printf("Optimal cost: %d, gap: %.2f%%%n", optimalCost, 100.0 * (cost - optimalCost) / optimalCost);
+        System.out.println("Move evaluation speed: " + result.moveEvaluationSpeed() + "/sec");
+    }
+
+    public static SolverConfig createSolverConfig() {
+        return new SolverConfig()
+                .withSolutionClass(HospitalLayout.class)
+                .withEntityClasses(Department.class)
+                .withScoreDirectorFactory(new ScoreDirectorFactoryConfig()
+                        .withIncrementalScoreCalculatorClass(LayoutScoreCalculator.class))
+                // Stop the solver if no better solution is found for 5 seconds.
+                .withTerminationConfig(new TerminationConfig()
+                        .withUnimprovedSecondsSpentLimit(5L))
+                // The construction heuristic puts every department on another location,
+                // swapping the locations of two departments keeps it that way
+                .withPhases(new ConstructionHeuristicPhaseConfig(),
+                        new LocalSearchPhaseConfig()
+                                .withMoveSelectorConfig(new SwapMoveSelectorConfig()));
+    }
+
+    /**
+     * Reads the size and the optimal cost on the first line, followed by the flow matrix and the distance matrix.
+     */
+    public static HospitalLayout createLayoutFromInput(Path instanceFile) {
+        try (InstanceReader reader = InstanceReader.open(instanceFile)) {
+            QapMatrices matrices = QapMatrices.read(reader);
+            var locations = IntStream.range(0, matrices.size()).mapToObj(Location::new).toList();
+            var departments = IntStream.range(0, matrices.size()).mapToObj(Department::new).toList();
+            return new HospitalLayout(matrices, departments, locations);
+        }
+    }
+
+    /**
+     * The flow between every pair of departments and the distance between every pair of locations,
+     * as flat arrays: {@code flows[from * size + to]}. Neither has to be symmetric.
+     */
+    public record QapMatrices(int size, long optimalCost, int[] flows, int[] distances) {
+
+        static QapMatrices read(InstanceReader reader) {
+            int size = reader.nextInt();
+            long optimalCost = reader.nextLong();
+            int[] flows = new int[size * size];
+            for (int i = 0; i < flows.length; i++) {
+                flows[i] = reader.nextInt();
+            }
+            int[] distances = new int[size * size];
+            for (int i = 0; i < distances.length; i++) {
+                distances[i] = reader.nextInt();
+            }
+            return new QapMatrices(size, optimalCost, flows, distances);
+        }
+
+        public int flow(int fromDepartment, int toDepartment) {
+            return flows[fromDepartment * size + toDepartment];
+        }
+
+        public int distance(int fromLocation, int toLocation) {
+            return distances[fromLocation * size + toLocation];
+        }
+    }
+
+    /**
+     * The id of a location is also its row and column in the distance matrix.
+     */
+    public static record Location(@PlanningId int id) {
+    }
+
+    @PlanningEntity
+    public static class Department {
+        @PlanningId
+        private Integer id;
+        @PlanningVariable
+        private Location location;
+
+        public Department() {
+        }
+
+        public Department(int id) {
+            this.id = id;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public Location getLocation() {
+            return location;
+        }
+
+        public void setLocation(Location location) {
+            this.location = location;
+        }
+
+        @Override
+        public String toString() {
+            return "Department " + id;
+        }
+    }
+
+    @PlanningSolution
+    public static class HospitalLayout {
+        /**
+         * The flows and distances the score calculator multiplies, the departments only hold their location.
+         */
+        private QapMatrices matrices;
+
+        @PlanningEntityCollectionProperty
+        private List<Department> departments;
+
+        @ProblemFactCollectionProperty
+        @ValueRangeProvider
+        private List<Location> locations;
+
+        @PlanningScore
+        private HardSoftLongScore score;
+
+        public HospitalLayout() {
+        }
+
+        public HospitalLayout(QapMatrices matrices, List<Department> departments, List<Location> locations) {
+            this.matrices = matrices;
+            this.departments = departments;
+            this.locations = locations;
+        }
+
+        public QapMatrices getMatrices() {
+            return matrices;
+        }
+
+        public List<Department> getDepartments() {
+            return departments;
+        }
+
+        public List<Location> getLocations() {
+            return locations;
+        }
+
+        public HardSoftLongScore getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * Keeps the location of every department in a primitive array.
+     * When a department moves, only the flows from and to that department are rescored,
+     * so a swap of two departments costs O(size) instead of O(size²) for the whole layout.
+     * <ul>
+     *     <li>Hard: one department per location.</li>
+     *     <li>Soft: minimize the sum of the flow times the distance over all pairs of departments.</li>
+     * </ul>
+     */
+    public static class LayoutScoreCalculator implements IncrementalScoreCalculator<HospitalLayout, HardSoftLongScore> {
+        private QapMatrices matrices;
+        // -1 for a department without a location
+        private int[] locationOfDepartment;
+        private int[] departmentCountOfLocation;
+        private int sharedLocationCount;
+        private long cost;
+
+        @Override
+        public void resetWorkingSolution(@NonNull HospitalLayout workingSolution) {
+            matrices = workingSolution.getMatrices();
+            locationOfDepartment = new int[matrices.size()];
+            Arrays.fill(locationOfDepartment, -1);
+            departmentCountOfLocation = new int[matrices.size()];
+            sharedLocationCount = 0;
+            cost = 0L;
+            for (Department department : workingSolution.getDepartments()) {
+                insert(department);
+            }
+        }
+
+        @Override
+        public void beforeEntityAdded(@NonNull Object entity) {
+        }
+
+        @Override
+        public void afterEntityAdded(@NonNull Object entity) {
+            insert((Department) entity);
+        }
+
+        @Override
+        public void beforeVariableChanged(@NonNull Object entity, @NonNull String variableName) {
+            retract((Department) entity);
+        }
+
+        @Override
+        public void afterVariableChanged(@NonNull Object entity, @NonNull String variableName) {
+            insert((Department) entity);
+        }
+
+        @Override
+        public void beforeEntityRemoved(@NonNull Object entity) {
+            retract((Department) entity);
+        }
+
+        @Override
+        public void afterEntityRemoved(@NonNull Object entity) {
+        }
+
+        private void insert(Department department) {
+            if (department.getLocation() == null) {
+                return;
+            }
+            int id = department.getId();
+            int location = department.getLocation().id();
+            locationOfDepartment[id] = location;
+            if (departmentCountOfLocation[location]++ > 0) {
+                sharedLocationCount++;
+            }
+            cost += flowCost(id, location);
+        }
+
+        private void retract(Department department) {
+            if (department.getLocation() == null) {
+                return;
+            }
+            int id = department.getId();
+            int location = department.getLocation().id();
+            cost -= flowCost(id, location);
+            if (--departmentCountOfLocation[location] > 0) {
+                sharedLocationCount--;
+            }
+            locationOfDepartment[id] = -1;
+        }
+
+        /**
+         * @return the cost of the flows from and to the department at the location, with the other departments
+         * that have a location
+         */
+        private long flowCost(int department, int location) {
+            long flowCost = (long) matrices.flow(department, department) * matrices.distance(location, location);
+            for (int other = 0; other < locationOfDepartment.length; other++) {
+                int otherLocation = locationOfDepartment[other];
+                if (other == department || otherLocation < 0) {
+                    continue;
+                }
+                flowCost += (long) matrices.flow(department, other) * matrices.distance(location, otherLocation)
+                        + (long) matrices.flow(other, department) * matrices.distance(otherLocation, location);
+            }
+            return flowCost;
+        }
+
+        @Override
+        public @NonNull HardSoftLongScore calculateScore() {
+            return HardSoftLongScore.of(-sharedLocationCount, -cost);
+        }
+    }
+}
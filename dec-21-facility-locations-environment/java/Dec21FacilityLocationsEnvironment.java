@@ -0,0 +1,462 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+/// This file requires Jbang to run it.
+//DEPS ai.timefold.solver:timefold-solver-core:1.16.0
+//SOURCES ../../shared/java/FacilityLocationEngine.java
+//SOURCES ../../shared/java/InstanceReader.java
+//SOURCES ../../shared/java/SolverOptions.java
+
+import ai.timefold.solver.core.api.domain.entity.PlanningEntity;
+import ai.timefold.solver.core.api.domain.lookup.PlanningId;
+import ai.timefold.solver.core.api.domain.solution.PlanningEntityCollectionProperty;
+import ai.timefold.solver.core.api.domain.solution.PlanningScore;
+import ai.timefold.solver.core.api.domain.solution.PlanningSolution;
+import ai.timefold.solver.core.api.domain.solution.ProblemFactCollectionProperty;
+import ai.timefold.solver.core.api.domain.valuerange.ValueRangeProvider;
+import ai.timefold.solver.core.api.domain.variable.PlanningVariable;
+import ai.timefold.solver.core.api.score.buildin.hardsoftlong.HardSoftLongScore;
+import ai.timefold.solver.core.api.score.calculator.IncrementalScoreCalculator;
+import ai.timefold.solver.core.api.score.director.ScoreDirector;
+import ai.timefold.solver.core.config.constructionheuristic.ConstructionHeuristicPhaseConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.composite.UnionMoveSelectorConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.factory.MoveIteratorFactoryConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.generic.ChangeMoveSelectorConfig;
+import ai.timefold.solver.core.config.localsearch.LocalSearchPhaseConfig;
+import ai.timefold.solver.core.config.score.director.ScoreDirectorFactoryConfig;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+import ai.timefold.solver.core.impl.heuristic.move.AbstractMove;
+import ai.timefold.solver.core.impl.heuristic.selector.move.factory.MoveIteratorFactory;
+import org.jspecify.annotations.NonNull;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class Dec21FacilityLocationsEnvironment {
+
+    public static void main(String... args) {
+        // The instance can be passed as first argument, defaults to the one of this challenge
+        SolverOptions options = SolverOptions.parse(args, "../instance.txt");
+        DistanceTable table = DistanceTable.read(options.getInstanceFile());
+
+        var result = options.solve(createSolverConfig(), createPlan(table), SitingPlan::getScore);
+        SitingPlan solution = result.bestSolution();
+        System.out.println("Score: " + solution.getScore());
+        List<String> facilities = solution.getSlots().stream()
+                .map(slot -> table.facilityNames().get(slot.getFacility().id()))
+                .sorted()
+                .toList();
+        System.out.println("Facilities: " + facilities);
+        System.out.println("Sum of the minimum distances: " + solution.getScore().softScore());
+        System.out.println("Move evaluation speed: " + result.moveEvaluationSpeed() + "/sec");
+    }
+
+    public static SolverConfig createSolverConfig() {
+        return new SolverConfig()
+                .withSolutionClass(SitingPlan.class)
+                .withEntityClasses(FacilitySlot.class)
+                .withScoreDirectorFactory(new ScoreDirectorFactoryConfig()
+                        .withIncrementalScoreCalculatorClass(SitingScoreCalculator.class))
+                // Stop the solver if no better solution is found for 5 seconds.
+                .withTerminationConfig(new TerminationConfig()
+                        .withUnimprovedSecondsSpentLimit(5L))
+                // Moving one slot closes a facility and opens another one, the best swap moves pick the best one to open
+                .withPhases(new ConstructionHeuristicPhaseConfig(),
+                        new LocalSearchPhaseConfig()
+                                .withMoveSelectorConfig(new UnionMoveSelectorConfig()
+                                        .withMoveSelectors(new ChangeMoveSelectorConfig(),
+                                                new MoveIteratorFactoryConfig()
+                                                        .withMoveIteratorFactoryClass(BestSwapMoveIteratorFactory.class))));
+    }
+
+    public static SitingPlan createPlan(DistanceTable table) {
+        var facilities = IntStream.range(0, table.facilityCount()).mapToObj(Facility::new).toList();
+        var slots = IntStream.range(0, table.p()).mapToObj(FacilitySlot::new).toList();
+        return new SitingPlan(table, slots, facilities);
+    }
+
+    /**
+     * The distances between the sensitive entities (the clients) and the candidate facility locations,
+     * ranked per client once, for the engines of the score calculator and the best swap moves.
+     */
+    public record DistanceTable(int p, List<String> facilityNames, FacilityLocationEngine.Ranking ranking) {
+
+        private static final String DESCRIPTION_DELIMITER = "##########";
+
+        /**
+         * The file starts with a description between two lines of #, which has an example table too.
+         * After it: {@code n=}, {@code m=} and {@code p=}, the client and facility names as {@code name = {...}},
+         * and the table: the distances of one facility to all clients per row, between braces.
+         * The distances are whole numbers, written as {@code 19.0}.
+         */
+        public static DistanceTable read(Path instanceFile) {
+            try (InstanceReader reader = InstanceReader.open(instanceFile)) {
+                reader.skipPastLineStartingWith(DESCRIPTION_DELIMITER);
+                reader.skipPastLineStartingWith(DESCRIPTION_DELIMITER);
+                int clientCount = readCount(reader, "n");
+                int facilityCount = readCount(reader, "m");
+                int p = readCount(reader, "p");
+                skipPastAssignment(reader, "clients");
+                for (int client = 0; client < clientCount; client++) {
+                    reader.nextWord();
+                }
+                skipPastAssignment(reader, "facilities");
+                List<String> facilityNames = new ArrayList<>(facilityCount);
+                for (int facility = 0; facility < facilityCount; facility++) {
+                    String name = reader.nextWord();
+                    if (name.equals("table")) {
+                        throw new IllegalStateException("The instance has (" + facility + ") facility names for m ("
+                                + facilityCount + ").");
+                    }
+                    facilityNames.add(name);
+                }
+                skipPastAssignment(reader, "table");
+                long[] distances = new long[clientCount * facilityCount];
+                for (int facility = 0; facility < facilityCount; facility++) {
+                    for (int client = 0; client < clientCount; client++) {
+                        distances[client * facilityCount + facility] = Math.round(reader.nextDouble());
+                    }
+                }
+                return new DistanceTable(p, facilityNames,
+                        new FacilityLocationEngine.Ranking(clientCount, facilityCount, distances));
+            }
+        }
+
+        /**
+         * Reads {@code <name>=<count>}, with or without whitespace around the equals sign.
+         */
+        private static int readCount(InstanceReader reader, String name) {
+            String assignment = reader.nextWord();
+            while (!assignment.contains("=") || assignment.endsWith("=")) {
+                assignment += reader.nextWord();
+            }
+            if (!assignment.startsWith(name + "=")) {
+                throw new IllegalStateException("Expected " + name + "= on line " + reader.getLineNumber()
+                        + " but found (" + assignment + ").");
+            }
+            return Integer.parseInt(assignment.substring(name.length() + 1));
+        }
+
+        private static void skipPastAssignment(InstanceReader reader, String name) {
+            reader.skipPast(name);
+            reader.skipPast("=");
+        }
+
+        public int facilityCount() {
+            return facilityNames.size();
+        }
+
+        /**
+         * @return a new engine without open facilities, the nearest facility of a client is the one with the minimum distance
+         */
+        public FacilityLocationEngine createEngine() {
+            return new FacilityLocationEngine(ranking);
+        }
+    }
+
+    /**
+     * The id of a facility is also its column in the distance table.
+     */
+    public record Facility(@PlanningId int id) {
+    }
+
+    /**
+     * One of the p facilities to place.
+     */
+    @PlanningEntity
+    public static class FacilitySlot {
+        @PlanningId
+        private Integer id;
+        @PlanningVariable
+        private Facility facility;
+
+        public FacilitySlot() {
+        }
+
+        public FacilitySlot(int id) {
+            this.id = id;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public Facility getFacility() {
+            return facility;
+        }
+
+        public void setFacility(Facility facility) {
+            this.facility = facility;
+        }
+
+        @Override
+        public String toString() {
+            return "FacilitySlot " + id;
+        }
+    }
+
+    @PlanningSolution
+    public static class SitingPlan {
+        /**
+         * The distance of every entity to every candidate location, the score calculator and the best swaps read it.
+         */
+        private DistanceTable table;
+
+        @PlanningEntityCollectionProperty
+        private List<FacilitySlot> slots;
+
+        @ProblemFactCollectionProperty
+        @ValueRangeProvider
+        private List<Facility> facilities;
+
+        @PlanningScore
+        private HardSoftLongScore score;
+
+        public SitingPlan() {
+        }
+
+        public SitingPlan(DistanceTable table, List<FacilitySlot> slots, List<Facility> facilities) {
+            this.table = table;
+            this.slots = slots;
+            this.facilities = facilities;
+        }
+
+        public DistanceTable getTable() {
+            return table;
+        }
+
+        public List<FacilitySlot> getSlots() {
+            return slots;
+        }
+
+        public List<Facility> getFacilities() {
+            return facilities;
+        }
+
+        public HardSoftLongScore getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * Keeps the open facilities in a {@link FacilityLocationEngine}, which knows the nearest one of every sensitive entity.
+     * Moving a slot closes its facility and opens another one, which only rescans the entities that are affected.
+     * <ul>
+     *     <li>Hard: one slot per facility.</li>
+     *     <li>Soft: maximize the sum over all entities of the distance to the nearest facility.</li>
+     * </ul>
+     */
+    public static class SitingScoreCalculator implements IncrementalScoreCalculator<SitingPlan, HardSoftLongScore> {
+        private FacilityLocationEngine engine;
+        private int[] slotCountOfFacility;
+        private int sharedFacilityCount;
+
+        @Override
+        public void resetWorkingSolution(@NonNull SitingPlan workingSolution) {
+            engine = workingSolution.getTable().createEngine();
+            slotCountOfFacility = new int[engine.facilityCount()];
+            sharedFacilityCount = 0;
+            for (FacilitySlot slot : workingSolution.getSlots()) {
+                insert(slot);
+            }
+        }
+
+        @Override
+        public void beforeEntityAdded(@NonNull Object entity) {
+        }
+
+        @Override
+        public void afterEntityAdded(@NonNull Object entity) {
+            insert((FacilitySlot) entity);
+        }
+
+        @Override
+        public void beforeVariableChanged(@NonNull Object entity, @NonNull String variableName) {
+            retract((FacilitySlot) entity);
+        }
+
+        @Override
+        public void afterVariableChanged(@NonNull Object entity, @NonNull String variableName) {
+            insert((FacilitySlot) entity);
+        }
+
+        @Override
+        public void beforeEntityRemoved(@NonNull Object entity) {
+            retract((FacilitySlot) entity);
+        }
+
+        @Override
+        public void afterEntityRemoved(@NonNull Object entity) {
+        }
+
+        private void insert(FacilitySlot slot) {
+            if (slot.getFacility() == null) {
+                return;
+            }
+            int facility = slot.getFacility().id();
+            if (slotCountOfFacility[facility]++ > 0) {
+                sharedFacilityCount++;
+            } else {
+                engine.open(facility);
+            }
+        }
+
+        private void retract(FacilitySlot slot) {
+            if (slot.getFacility() == null) {
+                return;
+            }
+            int facility = slot.getFacility().id();
+            if (--slotCountOfFacility[facility] > 0) {
+                sharedFacilityCount--;
+            } else {
+                engine.close(facility);
+            }
+        }
+
+        @Override
+        public @NonNull HardSoftLongScore calculateScore() {
+            return HardSoftLongScore.of(-sharedFacilityCount, engine.totalCost());
+        }
+    }
+
+    /**
+     * The fast interchange of the p-median heuristics, turned around to maximize:
+     * every move takes the facility of a slot and replaces it with the closed facility
+     * that gives the highest sum of minimum distances. {@link FacilityLocationEngine#swapDelta(int, int)}
+     * rates every closed facility in O(entities), from the nearest and second-nearest facility of every entity.
+     * The move can be worse than the current plan, the acceptor of the local search decides.
+     */
+    public static class BestSwapMoveIteratorFactory implements MoveIteratorFactory<SitingPlan, FacilitySwapMove> {
+
+        @Override
+        public long getSize(ScoreDirector<SitingPlan> scoreDirector) {
+            return scoreDirector.getWorkingSolution().getSlots().size();
+        }
+
+        /**
+         * The best swap of every slot, in order.
+         */
+        @Override
+        public Iterator<FacilitySwapMove> createOriginalMoveIterator(ScoreDirector<SitingPlan> scoreDirector) {
+            SitingPlan plan = scoreDirector.getWorkingSolution();
+            List<FacilitySlot> slots = plan.getSlots();
+            FacilityLocationEngine engine = openFacilities(plan);
+            return new Iterator<>() {
+                private int slotIndex = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return slotIndex < slots.size() && canSwap(engine);
+                }
+
+                @Override
+                public FacilitySwapMove next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return bestSwap(engine, plan, slots.get(slotIndex++));
+                }
+            };
+        }
+
+        @Override
+        public Iterator<FacilitySwapMove> createRandomMoveIterator(ScoreDirector<SitingPlan> scoreDirector,
+                Random workingRandom) {
+            SitingPlan plan = scoreDirector.getWorkingSolution();
+            List<FacilitySlot> slots = plan.getSlots();
+            FacilityLocationEngine engine = openFacilities(plan);
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return canSwap(engine);
+                }
+
+                @Override
+                public FacilitySwapMove next() {
+                    return bestSwap(engine, plan, slots.get(workingRandom.nextInt(slots.size())));
+                }
+            };
+        }
+
+        /**
+         * Timefold creates a new iterator every step, so the engine has the facilities that are open when the step starts.
+         * Rating the swaps doesn't open or close anything.
+         * The ranking of the table is shared, so this only opens the facilities of the slots.
+         */
+        private static FacilityLocationEngine openFacilities(SitingPlan plan) {
+            FacilityLocationEngine engine = plan.getTable().createEngine();
+            for (FacilitySlot slot : plan.getSlots()) {
+                if (slot.getFacility() != null && !engine.isOpen(slot.getFacility().id())) {
+                    engine.open(slot.getFacility().id());
+                }
+            }
+            return engine;
+        }
+
+        private static boolean canSwap(FacilityLocationEngine engine) {
+            return engine.openCount() > 1 && engine.openCount() < engine.facilityCount();
+        }
+
+        private static FacilitySwapMove bestSwap(FacilityLocationEngine engine, SitingPlan plan, FacilitySlot slot) {
+            int closedFacility = slot.getFacility().id();
+            int bestFacility = -1;
+            long bestDelta = Long.MIN_VALUE;
+            for (int facility = 0; facility < engine.facilityCount(); facility++) {
+                if (engine.isOpen(facility)) {
+                    continue;
+                }
+                long delta = engine.swapDelta(closedFacility, facility);
+                if (delta > bestDelta) {
+                    bestDelta = delta;
+                    bestFacility = facility;
+                }
+            }
+            return new FacilitySwapMove(slot, plan.getFacilities().get(bestFacility));
+        }
+    }
+
+    /**
+     * Moves a slot to another facility.
+     */
+    public static class FacilitySwapMove extends AbstractMove<SitingPlan> {
+        private final FacilitySlot slot;
+        private final Facility facility;
+
+        public FacilitySwapMove(FacilitySlot slot, Facility facility) {
+            this.slot = slot;
+            this.facility = facility;
+        }
+
+        @Override
+        public boolean isMoveDoable(ScoreDirector<SitingPlan> scoreDirector) {
+            return !facility.equals(slot.getFacility());
+        }
+
+        @Override
+        protected void doMoveOnGenuineVariables(ScoreDirector<SitingPlan> scoreDirector) {
+            scoreDirector.beforeVariableChanged(slot, "facility");
+            slot.setFacility(facility);
+            scoreDirector.afterVariableChanged(slot, "facility");
+        }
+
+        @Override
+        public Collection<FacilitySlot> getPlanningEntities() {
+            return List.of(slot);
+        }
+
+        @Override
+        public Collection<Facility> getPlanningValues() {
+            return List.of(facility);
+        }
+
+        @Override
+        public String toString() {
+            return slot + " {-> " + facility + "}";
+        }
+    }
+}
@@ -0,0 +1,426 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+/// This file requires Jbang to run it.
+//DEPS ai.timefold.solver:timefold-solver-core:1.16.0
+//SOURCES ../../shared/java/InstanceReader.java
+//SOURCES ../../shared/java/SolverOptions.java
+
+import ai.timefold.solver.core.api.domain.entity.PlanningEntity;
+import ai.timefold.solver.core.api.domain.lookup.PlanningId;
+import ai.timefold.solver.core.api.domain.solution.PlanningEntityProperty;
+import ai.timefold.solver.core.api.domain.solution.PlanningScore;
+import ai.timefold.solver.core.api.domain.solution.PlanningSolution;
+import ai.timefold.solver.core.api.domain.solution.ProblemFactCollectionProperty;
+import ai.timefold.solver.core.api.domain.valuerange.ValueRangeProvider;
+import ai.timefold.solver.core.api.domain.variable.PlanningListVariable;
+import ai.timefold.solver.core.api.score.buildin.simplelong.SimpleLongScore;
+import ai.timefold.solver.core.api.score.calculator.EasyScoreCalculator;
+import ai.timefold.solver.core.api.score.director.ScoreDirector;
+import ai.timefold.solver.core.config.heuristic.selector.move.composite.UnionMoveSelectorConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.generic.list.ListChangeMoveSelectorConfig;
+import ai.timefold.solver.core.config.heuristic.selector.move.generic.list.ListSwapMoveSelectorConfig;
+import ai.timefold.solver.core.config.localsearch.LocalSearchPhaseConfig;
+import ai.timefold.solver.core.config.phase.custom.CustomPhaseConfig;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+import ai.timefold.solver.core.impl.phase.custom.CustomPhaseCommand;
+import org.jspecify.annotations.NonNull;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class Dec22MachineJobScheduling {
+
+    /**
+     * The best known makespan of every instance in the collection, most of them proven optimal.
+     */
+    static final Map<String, Integer> BEST_KNOWN_MAKESPANS = Map.ofEntries(
+            Map.entry("abz5", 1234), Map.entry("abz6", 943), Map.entry("abz7", 656), Map.entry("abz8", 665),
+            Map.entry("abz9", 678),
+            Map.entry("ft06", 55), Map.entry("ft10", 930), Map.entry("ft20", 1165),
+            Map.entry("la01", 666), Map.entry("la02", 655), Map.entry("la03", 597), Map.entry("la04", 590),
+            Map.entry("la05", 593), Map.entry("la06", 926), Map.entry("la07", 890), Map.entry("la08", 863),
+            Map.entry("la09", 951), Map.entry("la10", 958), Map.entry("la11", 1222), Map.entry("la12", 1039),
+            Map.entry("la13", 1150), Map.entry("la14", 1292), Map.entry("la15", 1207), Map.entry("la16", 945),
+            Map.entry("la17", 784), Map.entry("la18", 848), Map.entry("la19", 842), Map.entry("la20", 902),
+            Map.entry("la21", 1046), Map.entry("la22", 927), Map.entry("la23", 1032), Map.entry("la24", 935),
+            Map.entry("la25", 977), Map.entry("la26", 1218), Map.entry("la27", 1235), Map.entry("la28", 1216),
+            Map.entry("la29", 1152), Map.entry("la30", 1355), Map.entry("la31", 1784), Map.entry("la32", 1850),
+            Map.entry("la33", 1719), Map.entry("la34", 1721), Map.entry("la35", 1888), Map.entry("la36", 1268),
+            Map.entry("la37", 1397), Map.entry("la38", 1196), Map.entry("la39", 1233), Map.entry("la40", 1222),
+            Map.entry("orb01", 1059), Map.entry("orb02", 888), Map.entry("orb03", 1005), Map.entry("orb04", 1005),
+            Map.entry("orb05", 887), Map.entry("orb06", 1010), Map.entry("orb07", 397), Map.entry("orb08", 899),
+            Map.entry("orb09", 934), Map.entry("orb10", 944),
+            Map.entry("swv01", 1407), Map.entry("swv02", 1475), Map.entry("swv03", 1398), Map.entry("swv04", 1464),
+            Map.entry("swv05", 1424), Map.entry("swv06", 1667), Map.entry("swv07", 1594), Map.entry("swv08", 1751),
+            Map.entry("swv09", 1655), Map.entry("swv10", 1743), Map.entry("swv11", 2983), Map.entry("swv12", 2972),
+            Map.entry("swv13", 3104), Map.entry("swv14", 2968), Map.entry("swv15", 2885), Map.entry("swv16", 2924),
+            Map.entry("swv17", 2794), Map.entry("swv18", 2852), Map.entry("swv19", 2843), Map.entry("swv20", 2823),
+            Map.entry("yn1", 884), Map.entry("yn2", 904), Map.entry("yn3", 892), Map.entry("yn4", 968));
+
+    private static final String DEFAULT_INSTANCE_NAME = "ft10";
+
+    public static void main(String... args) {
+        // Pick the instance of the collection with --instance=<name>, the other arguments are the usual solver options
+        SolverOptions options = SolverOptions.parse(args, "../instance.txt", "instance=");
+        String name = options.getOption("instance", DEFAULT_INSTANCE_NAME);
+        JobShopInstance instance = readInstances(options.getInstanceFile()).stream()
+                .filter(candidate -> candidate.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("The instance (" + name + ") isn't in the collection."));
+
+        var result = options.solve(createSolverConfig(), createSchedule(instance), JobShopSchedule::getScore);
+        JobShopSchedule solution = result.bestSolution();
+        System.out.println("Instance: " + instance.name() + " (" + instance.jobCount() + " jobs, "
+                + instance.machineCount() + " machines)");
+        System.out.println("Score: " + solution.getScore());
+        Integer bestKnown = BEST_KNOWN_MAKESPANS.get(instance.name());
+        if (bestKnown != null) {
+            System.out.printf("Gap to the best known makespan of %d: %.2f%%%n", bestKnown,
+                    gapPercentage(-solution.getScore().score(), bestKnown));
+        }
+        int[] startTimes = new ScheduleDecoder(instance).decode(solution.getDispatcher().getOperations());
+        for (int machine = 0; machine < instance.machineCount(); machine++) {
+            System.out.println("Machine " + machine + ": " + machineSchedule(instance, startTimes, machine));
+        }
+        System.out.println("Move evaluation speed: " + result.moveEvaluationSpeed() + "/sec");
+    }
+
+    public static SolverConfig createSolverConfig() {
+        return new SolverConfig()
+                .withSolutionClass(JobShopSchedule.class)
+                .withEntityClasses(Dispatcher.class)
+                .withEasyScoreCalculatorClass(MakespanCalculator.class)
+                // Stop the solver if no better solution is found for 3 seconds.
+                .withTerminationConfig(new TerminationConfig()
+                        .withUnimprovedSecondsSpentLimit(3L))
+                // Every dispatch order is feasible, so a dispatch rule replaces the construction heuristic,
+                // which would decode the whole order for every position of every operation.
+                // Without k-opt, as reversing a part of the dispatch order has no meaning here.
+                .withPhases(new CustomPhaseConfig()
+                                .withCustomPhaseCommandClassList(List.of(MostWorkRemainingCommand.class)),
+                        new LocalSearchPhaseConfig()
+                                .withMoveSelectorConfig(new UnionMoveSelectorConfig()
+                                        .withMoveSelectors(new ListChangeMoveSelectorConfig(),
+                                                new ListSwapMoveSelectorConfig())));
+    }
+
+    static double gapPercentage(long makespan, int bestKnown) {
+        return 100.0 * (makespan - bestKnown) / bestKnown;
+    }
+
+    private static String machineSchedule(JobShopInstance instance, int[] startTimes, int machine) {
+        // Sort the (start time, operation) pairs of the machine, packed in a long
+        long[] scheduled = new long[instance.jobCount()];
+        int count = 0;
+        for (int operation = 0; operation < startTimes.length; operation++) {
+            if (instance.machine(operation) == machine) {
+                scheduled[count++] = ((long) startTimes[operation] << 32) | operation;
+            }
+        }
+        Arrays.sort(scheduled, 0, count);
+        StringBuilder schedule = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int operation = (int) scheduled[i];
+            schedule.append(i == 0 ? "" : ", ").append("job ").append(operation / instance.machineCount())
+                    .append(" at ").append(startTimes[operation]);
+        }
+        return schedule.toString();
+    }
+
+    /**
+     * Reads every instance of the OR-Library collection,
+     * with a line per job with {@code <machine> <duration>} per step after the job and machine count.
+     */
+    public static List<JobShopInstance> readInstances(Path collectionFile) {
+        return InstanceReader.readCollection(collectionFile, JobShopInstance::read);
+    }
+
+    public static JobShopSchedule createSchedule(JobShopInstance instance) {
+        List<Operation> operations = new ArrayList<>(instance.operationCount());
+        for (int operation = 0; operation < instance.operationCount(); operation++) {
+            operations.add(new Operation(operation, operation / instance.machineCount()));
+        }
+        return new JobShopSchedule(instance, new Dispatcher(), operations);
+    }
+
+    /**
+     * Every job visits every machine once, in its own order.
+     * Operation {@code job * machineCount + step} is the step of the job,
+     * {@code machines} and {@code durations} are flat arrays indexed by operation.
+     */
+    public record JobShopInstance(String name, int jobCount, int machineCount, int[] machines, int[] durations) {
+
+        static JobShopInstance read(String name, InstanceReader reader) {
+            int jobCount = reader.nextInt();
+            int machineCount = reader.nextInt();
+            int[] machines = new int[jobCount * machineCount];
+            int[] durations = new int[jobCount * machineCount];
+            for (int operation = 0; operation < machines.length; operation++) {
+                machines[operation] = reader.nextInt();
+                durations[operation] = reader.nextInt();
+                if (machines[operation] < 0 || machines[operation] >= machineCount) {
+                    throw new IllegalStateException("The instance (" + name + ") uses machine (" + machines[operation]
+                            + "), which isn't between 0 and " + (machineCount - 1) + ".");
+                }
+            }
+            return new JobShopInstance(name, jobCount, machineCount, machines, durations);
+        }
+
+        public int operationCount() {
+            return machines.length;
+        }
+
+        public int machine(int operation) {
+            return machines[operation];
+        }
+
+        public int duration(int operation) {
+            return durations[operation];
+        }
+    }
+
+    /**
+     * An operation in the dispatch order. Only its job matters:
+     * the n-th operation of a job in the dispatch order is dispatched as the n-th step of that job,
+     * so every order respects the sequence of the steps.
+     */
+    public static class Operation {
+        @PlanningId
+        private Integer id;
+        private int job;
+
+        public Operation() {
+        }
+
+        public Operation(int id, int job) {
+            this.id = id;
+            this.job = job;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public int getJob() {
+            return job;
+        }
+
+        @Override
+        public String toString() {
+            return "Job " + job + " (" + id + ")";
+        }
+    }
+
+    @PlanningEntity
+    public static class Dispatcher {
+        @PlanningId
+        private Integer id = 1;
+        @PlanningListVariable
+        private List<Operation> operations;
+
+        public Dispatcher() {
+            this.operations = new ArrayList<>();
+        }
+
+        public List<Operation> getOperations() {
+            return operations;
+        }
+
+        public void setOperations(List<Operation> operations) {
+            this.operations = operations;
+        }
+    }
+
+    @PlanningSolution
+    public static class JobShopSchedule {
+        /**
+         * The machine and duration of every operation, the score calculator decodes the dispatch order with it.
+         */
+        private JobShopInstance instance;
+
+        @PlanningEntityProperty
+        private Dispatcher dispatcher;
+
+        @ProblemFactCollectionProperty
+        @ValueRangeProvider
+        private List<Operation> operations;
+
+        @PlanningScore
+        private SimpleLongScore score;
+
+        public JobShopSchedule() {
+        }
+
+        public JobShopSchedule(JobShopInstance instance, Dispatcher dispatcher, List<Operation> operations) {
+            this.instance = instance;
+            this.dispatcher = dispatcher;
+            this.operations = operations;
+        }
+
+        public JobShopInstance getInstance() {
+            return instance;
+        }
+
+        public Dispatcher getDispatcher() {
+            return dispatcher;
+        }
+
+        public List<Operation> getOperations() {
+            return operations;
+        }
+
+        public SimpleLongScore getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * Turns a dispatch order into start times: every operation starts in the earliest gap of its machine
+     * after the previous step of its job has finished, which can be before operations dispatched earlier.
+     * So every dispatch order gives a feasible schedule without idle time that could be skipped.
+     * The arrays are reused, so decoding doesn't allocate.
+     */
+    public static final class ScheduleDecoder {
+        private final JobShopInstance instance;
+        private final int[] nextStep;
+        private final int[] jobReadyTimes;
+        private final int[] machineCounts;
+        // Per machine, the scheduled start and end times sorted by start: machine * jobCount + i
+        private final int[] machineStarts;
+        private final int[] machineEnds;
+        private int makespan;
+
+        public ScheduleDecoder(JobShopInstance instance) {
+            this.instance = instance;
+            this.nextStep = new int[instance.jobCount()];
+            this.jobReadyTimes = new int[instance.jobCount()];
+            this.machineCounts = new int[instance.machineCount()];
+            this.machineStarts = new int[instance.operationCount()];
+            this.machineEnds = new int[instance.operationCount()];
+        }
+
+        /**
+         * @param dispatchOrder only the job of each operation is used
+         * @return the start time per operation ({@code job * machineCount + step}), -1 if it isn't dispatched
+         */
+        public int[] decode(List<Operation> dispatchOrder) {
+            int[] startTimes = new int[instance.operationCount()];
+            Arrays.fill(startTimes, -1);
+            decode(dispatchOrder, startTimes);
+            return startTimes;
+        }
+
+        /**
+         * @return the makespan
+         */
+        public int decodeMakespan(List<Operation> dispatchOrder) {
+            decode(dispatchOrder, null);
+            return makespan;
+        }
+
+        private void decode(List<Operation> dispatchOrder, int[] startTimes) {
+            Arrays.fill(nextStep, 0);
+            Arrays.fill(jobReadyTimes, 0);
+            Arrays.fill(machineCounts, 0);
+            makespan = 0;
+            int jobCount = instance.jobCount();
+            for (Operation token : dispatchOrder) {
+                int job = token.getJob();
+                int operation = job * instance.machineCount() + nextStep[job]++;
+                int machine = instance.machine(operation);
+                int duration = instance.duration(operation);
+                int offset = machine * jobCount;
+                int count = machineCounts[machine];
+                // Find the first gap after the job is ready that is long enough
+                int start = jobReadyTimes[job];
+                int index = 0;
+                while (index < count && machineEnds[offset + index] <= start) {
+                    index++;
+                }
+                while (index < count && start + duration > machineStarts[offset + index]) {
+                    start = Math.max(start, machineEnds[offset + index]);
+                    index++;
+                }
+                System.arraycopy(machineStarts, offset + index, machineStarts, offset + index + 1, count - index);
+                System.arraycopy(machineEnds, offset + index, machineEnds, offset + index + 1, count - index);
+                machineStarts[offset + index] = start;
+                machineEnds[offset + index] = start + duration;
+                machineCounts[machine] = count + 1;
+                jobReadyTimes[job] = start + duration;
+                makespan = Math.max(makespan, start + duration);
+                if (startTimes != null) {
+                    startTimes[operation] = start;
+                }
+            }
+        }
+    }
+
+    /**
+     * Dispatches the next operation of the job with the most work remaining, the classic dispatch rule,
+     * unless the dispatch order is already complete.
+     */
+    public static class MostWorkRemainingCommand implements CustomPhaseCommand<JobShopSchedule> {
+
+        @Override
+        public void changeWorkingSolution(ScoreDirector<JobShopSchedule> scoreDirector) {
+            JobShopSchedule schedule = scoreDirector.getWorkingSolution();
+            JobShopInstance instance = schedule.getInstance();
+            Dispatcher dispatcher = schedule.getDispatcher();
+            List<Operation> dispatchOrder = dispatcher.getOperations();
+            if (dispatchOrder.size() == schedule.getOperations().size()) {
+                return;
+            } else if (!dispatchOrder.isEmpty()) {
+                throw new IllegalStateException("The dispatch order must either be empty or contain all operations,"
+                        + " but it has (" + dispatchOrder.size() + ") of the (" + schedule.getOperations().size()
+                        + ") operations.");
+            }
+
+            int machineCount = instance.machineCount();
+            int[] remainingWork = new int[instance.jobCount()];
+            for (int operation = 0; operation < instance.operationCount(); operation++) {
+                remainingWork[operation / machineCount] += instance.duration(operation);
+            }
+            int[] nextStep = new int[instance.jobCount()];
+            for (int index = 0; index < instance.operationCount(); index++) {
+                int job = -1;
+                for (int candidate = 0; candidate < remainingWork.length; candidate++) {
+                    if (nextStep[candidate] < machineCount && (job < 0 || remainingWork[candidate] > remainingWork[job])) {
+                        job = candidate;
+                    }
+                }
+                int operation = job * machineCount + nextStep[job]++;
+                remainingWork[job] -= instance.duration(operation);
+                // The operations of a job are interchangeable, take them in order
+                Operation token = schedule.getOperations().get(operation);
+                scoreDirector.beforeListVariableElementAssigned(dispatcher, "operations", token);
+                scoreDirector.beforeListVariableChanged(dispatcher, "operations", index, index);
+                dispatchOrder.add(token);
+                scoreDirector.afterListVariableChanged(dispatcher, "operations", index, index + 1);
+                scoreDirector.afterListVariableElementAssigned(dispatcher, "operations", token);
+            }
+            scoreDirector.triggerVariableListeners();
+        }
+    }
+
+    /**
+     * Decodes the whole dispatch order for every move, which takes microseconds for these instances.
+     * <ul>
+     *     <li>Minimize the makespan: the time the last operation finishes.</li>
+     * </ul>
+     * The order of the steps of a job and the capacity of the machines hold by construction, see {@link ScheduleDecoder}.
+     */
+    public static class MakespanCalculator implements EasyScoreCalculator<JobShopSchedule, SimpleLongScore> {
+        private ScheduleDecoder decoder;
+
+        @Override
+        public @NonNull SimpleLongScore calculateScore(@NonNull JobShopSchedule schedule) {
+            if (decoder == null || decoder.instance != schedule.getInstance()) {
+                decoder = new ScheduleDecoder(schedule.getInstance());
+            }
+            return SimpleLongScore.of(-decoder.decodeMakespan(schedule.getDispatcher().getOperations()));
+        }
+    }
+}
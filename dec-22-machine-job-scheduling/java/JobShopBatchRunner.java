@@ -0,0 +1,129 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+/// This file requires Jbang to run it.
+//DEPS ai.timefold.solver:timefold-solver-core:1.16.0
+//SOURCES Dec22MachineJobScheduling.java
+//SOURCES ../../shared/java/SolverOptions.java
+
+import ai.timefold.solver.core.api.solver.Solver;
+import ai.timefold.solver.core.api.solver.SolverFactory;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Solves every instance of the collection, several at the same time, and writes one CSV line per instance.
+ * Arguments: {@code [instance file] [--seconds=<per instance>] [--threads=<count>] [--csv=<file>]},
+ * by default {@code ../instance.txt}, 10 seconds, a thread per processor and {@code jobshop-results.csv}.
+ * Every instance gets its own single-threaded solver, which stops at the time limit
+ * or as soon as it reaches the best known makespan.
+ */
+public class JobShopBatchRunner {
+
+    public static void main(String... args) {
+        SolverOptions options = SolverOptions.parse(args, "../instance.txt", "threads=", "csv=");
+        long secondsPerInstance = options.getSecondsSpentLimit() == null ? 10L : options.getSecondsSpentLimit();
+        int threadCount = options.getPositiveIntOption("threads", Runtime.getRuntime().availableProcessors());
+        Path csvFile = Path.of(options.getOption("csv", "jobshop-results.csv"));
+
+        List<Dec22MachineJobScheduling.JobShopInstance> instances =
+                Dec22MachineJobScheduling.readInstances(options.getInstanceFile());
+        System.out.printf("Solving %d instances for %d seconds each on %d threads.%n",
+                instances.size(), secondsPerInstance, threadCount);
+        long start = System.currentTimeMillis();
+        List<InstanceResult> results = new ArrayList<>(instances.size());
+        // Bounded, so the solvers don't compete for the same processors and the time limit means the same for every instance
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<InstanceResult>> futures = new ArrayList<>(instances.size());
+            for (var instance : instances) {
+                futures.add(executor.submit(() -> solve(instance, secondsPerInstance)));
+            }
+            // In the order of the collection, whichever finishes first
+            for (Future<InstanceResult> future : futures) {
+                InstanceResult result = future.get();
+                System.out.println(result.toCsvLine());
+                results.add(result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Solving was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Solving failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        writeCsv(csvFile, results);
+        long bestKnownCount = results.stream().filter(result -> result.bestKnown() != null).count();
+        long reachedCount = results.stream()
+                .filter(result -> result.bestKnown() != null && result.makespan() <= result.bestKnown())
+                .count();
+        double averageGap = results.stream()
+                .filter(result -> result.bestKnown() != null)
+                .mapToDouble(InstanceResult::gapPercentage)
+                .average().orElse(0.0);
+        System.out.printf("Reached the best known makespan of %d of %d instances, average gap %.2f%%.%n",
+                reachedCount, bestKnownCount, averageGap);
+        System.out.printf("Wrote %s in %d seconds.%n", csvFile, (System.currentTimeMillis() - start) / 1000L);
+    }
+
+    private static InstanceResult solve(Dec22MachineJobScheduling.JobShopInstance instance, long seconds) {
+        Integer bestKnown = Dec22MachineJobScheduling.BEST_KNOWN_MAKESPANS.get(instance.name());
+        SolverConfig config = Dec22MachineJobScheduling.createSolverConfig()
+                .withTerminationConfig(new TerminationConfig()
+                        .withSecondsSpentLimit(seconds)
+                        .withBestScoreLimit(bestKnown == null ? null : String.valueOf(-bestKnown)));
+        Solver<Dec22MachineJobScheduling.JobShopSchedule> solver = SolverFactory
+                .<Dec22MachineJobScheduling.JobShopSchedule>create(config).buildSolver();
+        long start = System.currentTimeMillis();
+        // The events are fired on the solver thread, the latest one is the best solution
+        AtomicLong timeToBest = new AtomicLong();
+        solver.addEventListener(event -> timeToBest.set(System.currentTimeMillis() - start));
+        var solution = solver.solve(Dec22MachineJobScheduling.createSchedule(instance));
+        long timeSpent = System.currentTimeMillis() - start;
+        return new InstanceResult(instance.name(), instance.jobCount(), instance.machineCount(),
+                -solution.getScore().score(), bestKnown, timeToBest.get(), timeSpent);
+    }
+
+    private static void writeCsv(Path csvFile, List<InstanceResult> results) {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(csvFile))) {
+            writer.println("instance,jobs,machines,makespan,best_known,gap_percent,time_to_best_ms,time_spent_ms");
+            for (InstanceResult result : results) {
+                writer.println(result.toCsvLine());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + csvFile.toAbsolutePath() + ".", e);
+        }
+    }
+
+    /**
+     * @param bestKnown null if the instance isn't in {@link Dec22MachineJobScheduling#BEST_KNOWN_MAKESPANS}
+     */
+    record InstanceResult(String name, int jobCount, int machineCount, long makespan, Integer bestKnown,
+            long timeToBestMillis, long timeSpentMillis) {
+
+        double gapPercentage() {
+            return Dec22MachineJobScheduling.gapPercentage(makespan, bestKnown);
+        }
+
+        String toCsvLine() {
+            return String.join(",", name, String.valueOf(jobCount), String.valueOf(machineCount),
+                    String.valueOf(makespan), bestKnown == null ? "" : String.valueOf(bestKnown),
+                    bestKnown == null ? "" : String.format(Locale.ROOT, "%.2f", gapPercentage()),
+                    String.valueOf(timeToBestMillis), String.valueOf(timeSpentMillis));
+        }
+    }
+}
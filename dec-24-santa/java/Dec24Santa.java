@@ -0,0 +1,570 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+/// This file requires Jbang to run it.
+//DEPS ai.timefold.solver:timefold-solver-core:1.16.0
+//SOURCES ../../shared/java/InstanceReader.java
+//SOURCES ../../shared/java/SolverOptions.java
+
+import ai.timefold.solver.core.api.domain.entity.PlanningEntity;
+import ai.timefold.solver.core.api.domain.lookup.PlanningId;
+import ai.timefold.solver.core.api.domain.solution.PlanningEntityCollectionProperty;
+import ai.timefold.solver.core.api.domain.solution.PlanningScore;
+import ai.timefold.solver.core.api.domain.solution.PlanningSolution;
+import ai.timefold.solver.core.api.domain.valuerange.ValueRangeProvider;
+import ai.timefold.solver.core.api.domain.variable.CascadingUpdateShadowVariable;
+import ai.timefold.solver.core.api.domain.variable.InverseRelationShadowVariable;
+import ai.timefold.solver.core.api.domain.variable.NextElementShadowVariable;
+import ai.timefold.solver.core.api.domain.variable.PlanningListVariable;
+import ai.timefold.solver.core.api.domain.variable.PreviousElementShadowVariable;
+import ai.timefold.solver.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftLongScore;
+import ai.timefold.solver.core.api.score.stream.Constraint;
+import ai.timefold.solver.core.api.score.stream.ConstraintFactory;
+import ai.timefold.solver.core.api.score.stream.ConstraintProvider;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static ai.timefold.solver.core.api.score.stream.ConstraintCollectors.sumLong;
+
+public class Dec24Santa {
+
+    public static void main(String... args) {
+        // The instance can be passed as first argument, defaults to the one of this challenge
+        SolverOptions options = SolverOptions.parse(args, "../instance.txt");
+        DeliveryInstance instance = DeliveryInstance.read(options.getInstanceFile());
+        SantaPlan plan = createPlan(instance);
+
+        var result = options.solve(createSolverConfig(), plan, SantaPlan::getScore);
+        SantaPlan solution = result.bestSolution();
+        System.out.println("Score: " + solution.getScore());
+        List<Sleigh> usedSleighs = solution.getSleighs().stream()
+                .filter(sleigh -> !sleigh.getDeliveries().isEmpty())
+                .toList();
+        System.out.println("Sleigh drivers: " + usedSleighs.size() + " (at least " + instance.minimumSleighCount()
+                + " for the capacity)");
+        for (Sleigh sleigh : usedSleighs) {
+            StringBuilder route = new StringBuilder();
+            for (Delivery delivery : sleigh.getDeliveries()) {
+                route.append(route.isEmpty() ? "" : ", ").append(delivery.getId())
+                        .append(" at ").append(formatTime(delivery.getServiceStartTime()));
+            }
+            System.out.println("Sleigh " + sleigh.getId() + " (" + sleigh.getTotalWeight() + " kg): " + route);
+        }
+        System.out.println("Move evaluation speed: " + result.moveEvaluationSpeed() + "/sec");
+    }
+
+    public static SolverConfig createSolverConfig() {
+        return new SolverConfig()
+                .withSolutionClass(SantaPlan.class)
+                .withEntityClasses(Sleigh.class, Delivery.class)
+                .withConstraintProviderClass(SantaConstraintProvider.class)
+                // Stop the solver if no better solution is found for 10 seconds.
+                .withTerminationConfig(new TerminationConfig()
+                        .withUnimprovedSecondsSpentLimit(10L));
+    }
+
+    /**
+     * Every sleigh starts empty, so the solver decides how many drivers are needed.
+     * Twice the minimum for the capacity leaves room for the time windows.
+     */
+    public static SantaPlan createPlan(DeliveryInstance instance) {
+        int sleighCount = Math.min(instance.deliveryCount(), 2 * instance.minimumSleighCount());
+        var sleighs = IntStream.range(0, sleighCount)
+                .mapToObj(id -> new Sleigh(id, instance))
+                .toList();
+        var deliveries = IntStream.range(1, instance.locationCount())
+                .filter(location -> location != instance.depot())
+                .mapToObj(location -> new Delivery(location, instance))
+                .toList();
+        return new SantaPlan(sleighs, deliveries);
+    }
+
+    private static String formatTime(long seconds) {
+        return String.format("%d:%02d", seconds / 3600L, (seconds / 60L) % 60L);
+    }
+
+    /**
+     * The locations and their demands, time windows and service times, in flat arrays indexed by location.
+     * Distances are calculated from the coordinates when needed instead of stored in a matrix,
+     * so the memory grows linearly with the number of locations.
+     * <p>
+     * The instance doesn't give a unit for the coordinates, they are taken as kilometres.
+     * The reindeer fly at 1000 km/h, so a kilometre takes 3.6 seconds. All times are in seconds.
+     */
+    public static final class DeliveryInstance {
+        private static final double SECONDS_PER_KILOMETRE = 3.6;
+        private static final int DAY_END = 24 * 3600;
+
+        private final double[] xs;
+        private final double[] ys;
+        private final long[] weights;
+        private final long[] volumes;
+        private final int[] serviceTimes;
+        // The time windows of location l are windowStarts/windowEnds[windowOffsets[l]] until windowOffsets[l + 1]
+        private final int[] windowOffsets;
+        private final int[] windowStarts;
+        private final int[] windowEnds;
+        private final long weightCapacity;
+        private final long volumeCapacity;
+        private final int depot;
+
+        private DeliveryInstance(double[] xs, double[] ys, long[] weights, long[] volumes, int[] serviceTimes,
+                int[] windowOffsets, int[] windowStarts, int[] windowEnds, long weightCapacity, long volumeCapacity,
+                int depot) {
+            this.xs = xs;
+            this.ys = ys;
+            this.weights = weights;
+            this.volumes = volumes;
+            this.serviceTimes = serviceTimes;
+            this.windowOffsets = windowOffsets;
+            this.windowStarts = windowStarts;
+            this.windowEnds = windowEnds;
+            this.weightCapacity = weightCapacity;
+            this.volumeCapacity = volumeCapacity;
+            this.depot = depot;
+        }
+
+        /**
+         * Reads the instance in the TSPLIB-like format of the challenge: a header with
+         * {@code DIMENSION}, {@code CAPACITY} and {@code CAPACITY_VOL}, followed by sections of rows that start
+         * with the (1-based) location id. A location can have several time windows (several rows),
+         * a location without any row in {@code TIME_WINDOW_SECTION} can be visited all day.
+         */
+        public static DeliveryInstance read(Path instanceFile) {
+            try (InstanceReader reader = InstanceReader.open(instanceFile)) {
+                // The description above the data mentions the section names too
+                reader.skipPast("DIMENSION");
+                reader.skipPast(":");
+                int dimension = reader.nextInt();
+                reader.skipPast("CAPACITY");
+                reader.skipPast(":");
+                long weightCapacity = reader.nextLong();
+                long volumeCapacity = Long.MAX_VALUE;
+
+                double[] xs = new double[dimension + 1];
+                double[] ys = new double[dimension + 1];
+                long[] weights = new long[dimension + 1];
+                long[] volumes = new long[dimension + 1];
+                int[] serviceTimes = new int[dimension + 1];
+                List<int[]> windows = new ArrayList<>();
+                int depot = -1;
+                String section = null;
+                while (reader.hasNext()) {
+                    String token = reader.nextWord();
+                    if (token.equals("EOF")) {
+                        break;
+                    }
+                    if (!Character.isDigit(token.charAt(0)) && !token.equals("-1")) {
+                        section = token;
+                        if (section.equals("CAPACITY_VOL")) {
+                            reader.skipPast(":");
+                            volumeCapacity = reader.nextLong();
+                        }
+                        continue;
+                    }
+                    if (section == null) {
+                        throw new IllegalStateException("Line " + reader.getLineNumber() + " isn't in a section.");
+                    }
+                    int location = Integer.parseInt(token);
+                    if (location != -1 && (location < 1 || location > dimension)) {
+                        throw new IllegalStateException("The location (" + location + ") on line "
+                                + reader.getLineNumber() + " isn't between 1 and " + dimension + ".");
+                    }
+                    switch (section) {
+                        case "NODE_COORD_SECTION" -> {
+                            xs[location] = reader.nextDouble();
+                            ys[location] = reader.nextDouble();
+                        }
+                        case "DEMAND_SECTION" -> {
+                            weights[location] = reader.nextLong();
+                            volumes[location] = reader.nextLong();
+                        }
+                        case "PICKUP_SECTION" -> {
+                            if (reader.nextLong() != 0L || reader.nextLong() != 0L) {
+                                throw new IllegalStateException("The location (" + location
+                                        + ") has a pickup, which isn't supported.");
+                            }
+                        }
+                        case "TIME_WINDOW_SECTION" -> windows.add(
+                                new int[]{location, parseTime(reader.nextWord()), parseTime(reader.nextWord())});
+                        // The service time is in minutes
+                        case "STANDTIME_SECTION", "STAND_TIME_SECTION" -> serviceTimes[location] = 60 * reader.nextInt();
+                        case "DEPOT_SECTION" -> {
+                            if (location != -1) {
+                                depot = location;
+                            }
+                        }
+                        default -> throw new IllegalStateException("Unknown section (" + section + ").");
+                    }
+                }
+                if (depot < 0) {
+                    throw new IllegalStateException("The instance has no depot.");
+                }
+
+                // Sort the windows per location, like a CSR index
+                windows.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]));
+                int[] windowOffsets = new int[dimension + 2];
+                List<int[]> allWindows = new ArrayList<>(windows.size() + dimension);
+                int next = 0;
+                for (int location = 0; location <= dimension; location++) {
+                    windowOffsets[location] = allWindows.size();
+                    boolean hasWindow = false;
+                    while (next < windows.size() && windows.get(next)[0] == location) {
+                        allWindows.add(windows.get(next++));
+                        hasWindow = true;
+                    }
+                    if (!hasWindow) {
+                        allWindows.add(new int[]{location, 0, DAY_END});
+                    }
+                }
+                windowOffsets[dimension + 1] = allWindows.size();
+                int[] windowStarts = allWindows.stream().mapToInt(window -> window[1]).toArray();
+                int[] windowEnds = allWindows.stream().mapToInt(window -> window[2]).toArray();
+                return new DeliveryInstance(xs, ys, weights, volumes, serviceTimes, windowOffsets, windowStarts,
+                        windowEnds, weightCapacity, volumeCapacity, depot);
+            }
+        }
+
+        /**
+         * @param time like {@code 7:00} or {@code 13:45}
+         * @return the seconds since midnight
+         */
+        private static int parseTime(String time) {
+            int separator = time.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalStateException("The time (" + time + ") must be structured as hh:mm.");
+            }
+            return 3600 * Integer.parseInt(time.substring(0, separator))
+                    + 60 * Integer.parseInt(time.substring(separator + 1));
+        }
+
+        /**
+         * @return the number of locations plus one, as the ids are 1-based and index 0 is unused
+         */
+        public int locationCount() {
+            return xs.length;
+        }
+
+        public int deliveryCount() {
+            return xs.length - 2;
+        }
+
+        public int depot() {
+            return depot;
+        }
+
+        public int minimumSleighCount() {
+            long totalWeight = Arrays.stream(weights).sum();
+            long totalVolume = Arrays.stream(volumes).sum();
+            long byWeight = (totalWeight + weightCapacity - 1) / weightCapacity;
+            long byVolume = volumeCapacity == Long.MAX_VALUE ? 0L : (totalVolume + volumeCapacity - 1) / volumeCapacity;
+            return (int) Math.max(1L, Math.max(byWeight, byVolume));
+        }
+
+        /**
+         * @return the straight line distance in metres
+         */
+        public long distance(int from, int to) {
+            return Math.round(1000.0 * Math.hypot(xs[from] - xs[to], ys[from] - ys[to]));
+        }
+
+        public long travelTime(int from, int to) {
+            return Math.round(SECONDS_PER_KILOMETRE * Math.hypot(xs[from] - xs[to], ys[from] - ys[to]));
+        }
+
+        /**
+         * @return the start of the first time window which hasn't ended at the arrival time,
+         * or the arrival time if all have ended
+         */
+        public long serviceStartTime(int location, long arrivalTime) {
+            for (int window = windowOffsets[location]; window < windowOffsets[location + 1]; window++) {
+                if (arrivalTime <= windowEnds[window]) {
+                    return Math.max(arrivalTime, windowStarts[window]);
+                }
+            }
+            return arrivalTime;
+        }
+
+        /**
+         * @return how long after the end of the last time window the service starts, 0 if it starts within a window
+         */
+        public long lateness(int location, long serviceStartTime) {
+            return Math.max(0L, serviceStartTime - windowEnds[windowOffsets[location + 1] - 1]);
+        }
+
+        /**
+         * @return when the depot opens, the sleighs can leave from then on
+         */
+        public long depotOpeningTime() {
+            return windowStarts[windowOffsets[depot]];
+        }
+
+        public long weight(int location) {
+            return weights[location];
+        }
+
+        public long volume(int location) {
+            return volumes[location];
+        }
+
+        public int serviceTime(int location) {
+            return serviceTimes[location];
+        }
+
+        public long weightCapacity() {
+            return weightCapacity;
+        }
+
+        public long volumeCapacity() {
+            return volumeCapacity;
+        }
+    }
+
+    /**
+     * A child to deliver presents to. The shadow variables give every delivery its neighbours in the route,
+     * and the arrival time is a cascading update: after a move, Timefold recalculates it from the changed position
+     * onward and stops at the first delivery whose arrival time doesn't change, instead of redoing the whole route.
+     */
+    @PlanningEntity
+    public static class Delivery {
+        @PlanningId
+        private Integer id;
+        private DeliveryInstance instance;
+
+        @InverseRelationShadowVariable(sourceVariableName = "deliveries")
+        private Sleigh sleigh;
+        @PreviousElementShadowVariable(sourceVariableName = "deliveries")
+        private Delivery previousDelivery;
+        @NextElementShadowVariable(sourceVariableName = "deliveries")
+        private Delivery nextDelivery;
+        @CascadingUpdateShadowVariable(targetMethodName = "updateArrivalTime")
+        private Long arrivalTime;
+
+        public Delivery() {
+        }
+
+        public Delivery(int id, DeliveryInstance instance) {
+            this.id = id;
+            this.instance = instance;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public Sleigh getSleigh() {
+            return sleigh;
+        }
+
+        public Delivery getPreviousDelivery() {
+            return previousDelivery;
+        }
+
+        public Delivery getNextDelivery() {
+            return nextDelivery;
+        }
+
+        public Long getArrivalTime() {
+            return arrivalTime;
+        }
+
+        public void updateArrivalTime() {
+            if (sleigh == null) {
+                arrivalTime = null;
+            } else if (previousDelivery == null) {
+                arrivalTime = instance.depotOpeningTime() + instance.travelTime(instance.depot(), id);
+            } else {
+                arrivalTime = previousDelivery.getDepartureTime() + instance.travelTime(previousDelivery.id, id);
+            }
+        }
+
+        public long getServiceStartTime() {
+            return instance.serviceStartTime(id, arrivalTime);
+        }
+
+        public long getDepartureTime() {
+            return getServiceStartTime() + instance.serviceTime(id);
+        }
+
+        public long getLateness() {
+            return arrivalTime == null ? 0L : instance.lateness(id, getServiceStartTime());
+        }
+
+        /**
+         * @return the distance from the previous location, plus the distance back to the depot for the last delivery
+         */
+        public long getDistance() {
+            int previousLocation = previousDelivery == null ? instance.depot() : previousDelivery.id;
+            long distance = instance.distance(previousLocation, id);
+            if (nextDelivery == null) {
+                distance += instance.distance(id, instance.depot());
+            }
+            return distance;
+        }
+
+        public long getWeight() {
+            return instance.weight(id);
+        }
+
+        public long getVolume() {
+            return instance.volume(id);
+        }
+
+        @Override
+        public String toString() {
+            return "Delivery " + id;
+        }
+    }
+
+    @PlanningEntity
+    public static class Sleigh {
+        @PlanningId
+        private Integer id;
+        private DeliveryInstance instance;
+        @PlanningListVariable
+        private List<Delivery> deliveries;
+
+        public Sleigh() {
+            this.deliveries = new ArrayList<>();
+        }
+
+        public Sleigh(int id, DeliveryInstance instance) {
+            this();
+            this.id = id;
+            this.instance = instance;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public List<Delivery> getDeliveries() {
+            return deliveries;
+        }
+
+        public void setDeliveries(List<Delivery> deliveries) {
+            this.deliveries = deliveries;
+        }
+
+        public long getWeightCapacity() {
+            return instance.weightCapacity();
+        }
+
+        public long getVolumeCapacity() {
+            return instance.volumeCapacity();
+        }
+
+        public long getTotalWeight() {
+            return deliveries.stream().mapToLong(Delivery::getWeight).sum();
+        }
+
+        @Override
+        public String toString() {
+            return "Sleigh " + id;
+        }
+    }
+
+    @PlanningSolution
+    public static class SantaPlan {
+        @PlanningEntityCollectionProperty
+        private List<Sleigh> sleighs;
+
+        @PlanningEntityCollectionProperty
+        @ValueRangeProvider
+        private List<Delivery> deliveries;
+
+        @PlanningScore
+        private HardMediumSoftLongScore score;
+
+        public SantaPlan() {
+        }
+
+        public SantaPlan(List<Sleigh> sleighs, List<Delivery> deliveries) {
+            this.sleighs = sleighs;
+            this.deliveries = deliveries;
+        }
+
+        public List<Sleigh> getSleighs() {
+            return sleighs;
+        }
+
+        public List<Delivery> getDeliveries() {
+            return deliveries;
+        }
+
+        public HardMediumSoftLongScore getScore() {
+            return score;
+        }
+    }
+
+    public static class SantaConstraintProvider implements ConstraintProvider {
+
+        @Override
+        public Constraint[] defineConstraints(ConstraintFactory factory) {
+            return new Constraint[]{
+                    doNotExceedWeightCapacity(factory),
+                    doNotExceedVolumeCapacity(factory),
+                    deliverWithinTimeWindow(factory),
+                    minimizeSleighDrivers(factory),
+                    minimizeDistance(factory)
+            };
+        }
+
+        /**
+         * Creates a constraint which will reduce the HARD score by 1 for each kg above the capacity of a sleigh.
+         */
+        Constraint doNotExceedWeightCapacity(ConstraintFactory factory) {
+            return factory.forEach(Delivery.class)
+                    .groupBy(Delivery::getSleigh, sumLong(Delivery::getWeight))
+                    .filter((sleigh, weight) -> weight > sleigh.getWeightCapacity())
+                    .penalizeLong(HardMediumSoftLongScore.ONE_HARD, (sleigh, weight) -> weight - sleigh.getWeightCapacity())
+                    .asConstraint("doNotExceedWeightCapacity");
+        }
+
+        /**
+         * Creates a constraint which will reduce the HARD score by 1 for each cubic metre above the capacity of a sleigh.
+         */
+        Constraint doNotExceedVolumeCapacity(ConstraintFactory factory) {
+            return factory.forEach(Delivery.class)
+                    .groupBy(Delivery::getSleigh, sumLong(Delivery::getVolume))
+                    .filter((sleigh, volume) -> volume > sleigh.getVolumeCapacity())
+                    .penalizeLong(HardMediumSoftLongScore.ONE_HARD, (sleigh, volume) -> volume - sleigh.getVolumeCapacity())
+                    .asConstraint("doNotExceedVolumeCapacity");
+        }
+
+        /**
+         * Creates a constraint which will reduce the HARD score by 1 for each second a delivery is too late.
+         * A sleigh that arrives before a time window waits for it.
+         */
+        Constraint deliverWithinTimeWindow(ConstraintFactory factory) {
+            return factory.forEach(Delivery.class)
+                    .filter(delivery -> delivery.getLateness() > 0L)
+                    .penalizeLong(HardMediumSoftLongScore.ONE_HARD, Delivery::getLateness)
+                    .asConstraint("deliverWithinTimeWindow");
+        }
+
+        /**
+         * Creates a constraint which will reduce the MEDIUM score by 1 for each sleigh that delivers anything.
+         */
+        Constraint minimizeSleighDrivers(ConstraintFactory factory) {
+            return factory.forEach(Sleigh.class)
+                    .filter(sleigh -> !sleigh.getDeliveries().isEmpty())
+                    .penalize(HardMediumSoftLongScore.ONE_MEDIUM)
+                    .asConstraint("minimizeSleighDrivers");
+        }
+
+        /**
+         * Creates a constraint which will reduce the SOFT score by 1 for each metre flown.
+         * Every leg is matched on the delivery it arrives at, so a move only rescores the legs it changes.
+         */
+        Constraint minimizeDistance(ConstraintFactory factory) {
+            return factory.forEach(Delivery.class)
+                    .penalizeLong(HardMediumSoftLongScore.ONE_SOFT, Delivery::getDistance)
+                    .asConstraint("minimizeDistance");
+        }
+    }
+}
@@ -0,0 +1,251 @@
+import java.util.Arrays;
+
+/**
+ * Keeps the nearest and the second-nearest open facility of every client, for p-median like facility location problems.
+ * <p>
+ * The costs and the facilities sorted by cost per client are a {@link Ranking}, which never changes,
+ * so it's built once per instance and shared by all engines of it.
+ * An engine only has the open facilities and the nearest and second-nearest one per client.
+ * <p>
+ * Opening or closing a facility is O(clients): every client compares the rank of that facility
+ * with the ranks of its nearest and second-nearest facility.
+ * Only the clients that lose their nearest or second-nearest facility walk their sorted facilities to the next open one.
+ * That's the bookkeeping of the fast interchange heuristics for the p-median problem.
+ * {@link #swapDelta(int, int)} needs the nearest and second-nearest facility of a client only, so it costs O(clients),
+ * instead of O(clients × open facilities) to recalculate the total cost.
+ * <p>
+ * Include it in a JBang script with {@code //SOURCES ../../shared/java/FacilityLocationEngine.java}.
+ */
+public final class FacilityLocationEngine {
+    private static final int NONE = -1;
+
+    private final Ranking ranking;
+    private final boolean[] open;
+    private int openCount;
+    private final int[] nearest;
+    private final int[] secondNearest;
+    private long totalCost;
+
+    /**
+     * Starts without open facilities.
+     */
+    public FacilityLocationEngine(Ranking ranking) {
+        this.ranking = ranking;
+        open = new boolean[ranking.facilityCount];
+        nearest = new int[ranking.clientCount];
+        secondNearest = new int[ranking.clientCount];
+        Arrays.fill(nearest, NONE);
+        Arrays.fill(secondNearest, NONE);
+    }
+
+    public int clientCount() {
+        return ranking.clientCount;
+    }
+
+    public int facilityCount() {
+        return ranking.facilityCount;
+    }
+
+    public long cost(int client, int facility) {
+        return ranking.cost(client, facility);
+    }
+
+    public boolean isOpen(int facility) {
+        return open[facility];
+    }
+
+    public int openCount() {
+        return openCount;
+    }
+
+    /**
+     * @return the open facility with the lowest cost for the client, -1 if no facility is open
+     */
+    public int nearest(int client) {
+        return nearest[client];
+    }
+
+    /**
+     * @return the open facility with the second-lowest cost for the client, -1 if less than 2 facilities are open
+     */
+    public int secondNearest(int client) {
+        return secondNearest[client];
+    }
+
+    /**
+     * @return the sum over all clients of the cost of their nearest open facility, 0 if no facility is open
+     */
+    public long totalCost() {
+        return totalCost;
+    }
+
+    public void open(int facility) {
+        if (open[facility]) {
+            throw new IllegalStateException("The facility (" + facility + ") is already open.");
+        }
+        open[facility] = true;
+        openCount++;
+        for (int client = 0; client < ranking.clientCount; client++) {
+            if (isCloser(client, facility, nearest[client])) {
+                if (nearest[client] != NONE) {
+                    totalCost -= cost(client, nearest[client]);
+                }
+                totalCost += cost(client, facility);
+                secondNearest[client] = nearest[client];
+                nearest[client] = facility;
+            } else if (isCloser(client, facility, secondNearest[client])) {
+                secondNearest[client] = facility;
+            }
+        }
+    }
+
+    public void close(int facility) {
+        if (!open[facility]) {
+            throw new IllegalStateException("The facility (" + facility + ") isn't open.");
+        }
+        open[facility] = false;
+        openCount--;
+        for (int client = 0; client < ranking.clientCount; client++) {
+            if (nearest[client] == facility) {
+                totalCost -= cost(client, facility);
+                nearest[client] = secondNearest[client];
+                if (nearest[client] != NONE) {
+                    totalCost += cost(client, nearest[client]);
+                    secondNearest[client] = nextOpenFacility(client, nearest[client]);
+                }
+            } else if (secondNearest[client] == facility) {
+                secondNearest[client] = nextOpenFacility(client, facility);
+            }
+        }
+    }
+
+    /**
+     * @return the change of {@link #totalCost()} if the open facility would close and the closed facility would open
+     */
+    public long swapDelta(int closedFacility, int openedFacility) {
+        requireOtherOpenFacility(closedFacility);
+        if (open[openedFacility]) {
+            throw new IllegalStateException("The facility (" + openedFacility + ") is already open.");
+        }
+        long delta = 0L;
+        for (int client = 0; client < ranking.clientCount; client++) {
+            int current = nearest[client];
+            if (current == closedFacility) {
+                int replacement = isCloser(client, openedFacility, secondNearest[client])
+                        ? openedFacility : secondNearest[client];
+                delta += cost(client, replacement) - cost(client, current);
+            } else if (isCloser(client, openedFacility, current)) {
+                delta += cost(client, openedFacility) - cost(client, current);
+            }
+        }
+        return delta;
+    }
+
+    private void requireOtherOpenFacility(int facility) {
+        if (!open[facility]) {
+            throw new IllegalStateException("The facility (" + facility + ") isn't open.");
+        }
+        if (openCount < 2) {
+            throw new IllegalStateException("The facility (" + facility + ") is the only open facility.");
+        }
+    }
+
+    /**
+     * @return true if the facility comes before the other one in the sorted facilities of the client,
+     * or the other one is -1
+     */
+    private boolean isCloser(int client, int facility, int other) {
+        int row = client * ranking.facilityCount;
+        return other == NONE || ranking.ranks[row + facility] < ranking.ranks[row + other];
+    }
+
+    /**
+     * @return the first open facility after the given one in the sorted facilities of the client, -1 if there is none
+     */
+    private int nextOpenFacility(int client, int facility) {
+        int row = client * ranking.facilityCount;
+        for (int rank = ranking.ranks[row + facility] + 1; rank < ranking.facilityCount; rank++) {
+            int candidate = ranking.facilitiesByCost[row + rank];
+            if (open[candidate]) {
+                return candidate;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * The costs as a flat matrix, {@code costs[client * facilityCount + facility]},
+     * and per client all facilities sorted by cost (ties by facility id), so "nearest" is the same for every caller.
+     */
+    public static final class Ranking {
+        private final int clientCount;
+        private final int facilityCount;
+        private final long[] costs;
+        // Per client, all facilities from the cheapest to the most expensive, and the rank of every facility in that order
+        private final int[] facilitiesByCost;
+        private final int[] ranks;
+
+        public Ranking(int clientCount, int facilityCount, long[] costs) {
+            if (costs.length != clientCount * facilityCount) {
+                throw new IllegalArgumentException("The costs (" + costs.length + ") aren't a matrix of (" + clientCount
+                        + ") clients by (" + facilityCount + ") facilities.");
+            }
+            this.clientCount = clientCount;
+            this.facilityCount = facilityCount;
+            this.costs = costs;
+            facilitiesByCost = new int[clientCount * facilityCount];
+            ranks = new int[clientCount * facilityCount];
+            int[] buffer = new int[facilityCount];
+            for (int client = 0; client < clientCount; client++) {
+                int row = client * facilityCount;
+                for (int facility = 0; facility < facilityCount; facility++) {
+                    facilitiesByCost[row + facility] = facility;
+                }
+                sortRow(row, buffer);
+                for (int rank = 0; rank < facilityCount; rank++) {
+                    ranks[row + facilitiesByCost[row + rank]] = rank;
+                }
+            }
+        }
+
+        public int clientCount() {
+            return clientCount;
+        }
+
+        public int facilityCount() {
+            return facilityCount;
+        }
+
+        public long cost(int client, int facility) {
+            return costs[client * facilityCount + facility];
+        }
+
+        /**
+         * A bottom-up merge sort of the facilities of a row by cost.
+         * It's stable, so facilities with the same cost stay in order of id.
+         */
+        private void sortRow(int row, int[] buffer) {
+            for (int width = 1; width < facilityCount; width *= 2) {
+                for (int start = 0; start + width < facilityCount; start += 2 * width) {
+                    merge(row, row + start, row + start + width, row + Math.min(start + 2 * width, facilityCount), buffer);
+                }
+            }
+        }
+
+        private void merge(int row, int from, int middle, int to, int[] buffer) {
+            int leftCount = middle - from;
+            System.arraycopy(facilitiesByCost, from, buffer, 0, leftCount);
+            int left = 0;
+            int right = middle;
+            int target = from;
+            while (left < leftCount && right < to) {
+                if (costs[row + buffer[left]] <= costs[row + facilitiesByCost[right]]) {
+                    facilitiesByCost[target++] = buffer[left++];
+                } else {
+                    facilitiesByCost[target++] = facilitiesByCost[right++];
+                }
+            }
+            System.arraycopy(buffer, left, facilitiesByCost, target, leftCount - left);
+        }
+    }
+}
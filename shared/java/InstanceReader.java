@@ -0,0 +1,396 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Streaming tokenizer for the {@code instance.txt} files of the OR Advent challenges.
+ * <p>
+ * Reads the file through a byte buffer and parses numbers straight from the bytes,
+ * so even multi-megabyte instances are read without building intermediate Strings.
+ * Everything from a {@code #} up to the end of the line is a comment and skipped.
+ * Commas and braces separate tokens like whitespace does, so lists like {@code {1.0,2.0}} read as plain numbers.
+ * Both {@code \n} and {@code \r\n} line endings are supported.
+ * <p>
+ * Include it in a JBang script with {@code //SOURCES ../../shared/java/InstanceReader.java}.
+ */
+public final class InstanceReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int END_OF_STREAM = -1;
+
+    private final InputStream inputStream;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long bufferOffset;
+    private long remaining;
+    private int lineNumber;
+
+    public InstanceReader(InputStream inputStream) {
+        this(inputStream, Long.MAX_VALUE, 1);
+    }
+
+    /**
+     * @param length the number of bytes to read, the reader ends there even if the stream doesn't
+     * @param lineNumber the line number of the first line, for the error messages
+     */
+    private InstanceReader(InputStream inputStream, long length, int lineNumber) {
+        this.inputStream = inputStream;
+        this.remaining = length;
+        this.lineNumber = lineNumber;
+    }
+
+    public static InstanceReader open(Path file) {
+        try {
+            return new InstanceReader(Files.newInputStream(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open instance file " + file.toAbsolutePath() + ".", e);
+        }
+    }
+
+    /**
+     * Splits a collection of the OR-Library (like the job shop or flow shop instances) into its instances.
+     * Every instance starts with a line {@code instance <name>}, followed by a separator line, a description line
+     * and the line {@code <job count> <machine count>}.
+     * The collection is scanned once for the offsets of those lines,
+     * every instance is then read from its own reader that starts at its offset and stops at the next instance.
+     *
+     * @param instanceReader reads an instance from its name and a reader that starts at the job and machine count,
+     * it can read up to the next instance, as the rows of a long job can wrap over several lines
+     */
+    public static <Instance_> List<Instance_> readCollection(Path collectionFile,
+            BiFunction<String, InstanceReader, Instance_> instanceReader) {
+        List<Instance_> instances = new ArrayList<>();
+        try (InstanceReader scanner = open(collectionFile)) {
+            String name = null;
+            long countOffset = -1L;
+            int countLineNumber = 0;
+            while (scanner.peek() != END_OF_STREAM) {
+                long lineOffset = scanner.getOffset();
+                int lineNumber = scanner.getLineNumber();
+                String instanceName = scanner.readInstanceLine();
+                if (instanceName != null) {
+                    if (name != null) {
+                        instances.add(readInstance(collectionFile, name, countOffset, lineOffset, countLineNumber,
+                                instanceReader));
+                    }
+                    name = instanceName;
+                    countOffset = -1L;
+                } else if (name != null && countOffset < 0L && scanner.isCountLine()) {
+                    // The description line can contain numbers too, but never just two of them
+                    countOffset = lineOffset;
+                    countLineNumber = lineNumber;
+                }
+                scanner.skipLine();
+            }
+            if (name != null) {
+                instances.add(readInstance(collectionFile, name, countOffset, scanner.getOffset(), countLineNumber,
+                        instanceReader));
+            }
+        }
+        return instances;
+    }
+
+    private static <Instance_> Instance_ readInstance(Path collectionFile, String name, long startOffset, long endOffset,
+            int startLineNumber, BiFunction<String, InstanceReader, Instance_> instanceReader) {
+        if (startOffset < 0L) {
+            throw new IllegalStateException("The instance (" + name + ") has no line with its job and machine count.");
+        }
+        try {
+            SeekableByteChannel channel = Files.newByteChannel(collectionFile);
+            channel.position(startOffset);
+            try (InstanceReader reader = new InstanceReader(Channels.newInputStream(channel),
+                    endOffset - startOffset, startLineNumber)) {
+                return instanceReader.apply(name, reader);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read instance file " + collectionFile.toAbsolutePath() + ".", e);
+        }
+    }
+
+    /**
+     * @return true if there is another token, skipping whitespace, line endings and comments.
+     */
+    public boolean hasNext() {
+        skipSeparators(true);
+        return peek() != END_OF_STREAM;
+    }
+
+    /**
+     * @return true if there is another token before the end of the current line (or the start of a comment).
+     */
+    public boolean hasNextOnLine() {
+        skipSeparators(false);
+        int next = peek();
+        return next != END_OF_STREAM && next != '\n' && next != '#';
+    }
+
+    /**
+     * Skips the rest of the current line, including its line ending.
+     */
+    public void skipLine() {
+        int next;
+        while ((next = read()) != END_OF_STREAM && next != '\n') {
+            // skip
+        }
+    }
+
+    public int nextInt() {
+        long value = nextLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Value (" + value + ") on line " + lineNumber + " doesn't fit in an int.");
+        }
+        return (int) value;
+    }
+
+    public long nextLong() {
+        skipSeparators(true);
+        boolean negative = false;
+        if (peek() == '-' || peek() == '+') {
+            negative = read() == '-';
+        }
+        if (!isDigit(peek())) {
+            throw unexpected("an integer");
+        }
+        long value = 0;
+        while (isDigit(peek())) {
+            value = value * 10 + (read() - '0');
+        }
+        if (!isTokenEnd(peek())) {
+            throw unexpected("an integer");
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a decimal like {@code 42}, {@code 7500.}, {@code 6739.72500} or {@code 1.5e3}.
+     */
+    public double nextDouble() {
+        skipSeparators(true);
+        boolean negative = false;
+        if (peek() == '-' || peek() == '+') {
+            negative = read() == '-';
+        }
+        if (!isDigit(peek()) && peek() != '.') {
+            throw unexpected("a number");
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        while (isDigit(peek())) {
+            mantissa = mantissa * 10 + (read() - '0');
+        }
+        if (peek() == '.') {
+            read();
+            while (isDigit(peek())) {
+                mantissa = mantissa * 10 + (read() - '0');
+                exponent--;
+            }
+        }
+        if (peek() == 'e' || peek() == 'E') {
+            read();
+            boolean negativeExponent = false;
+            if (peek() == '-' || peek() == '+') {
+                negativeExponent = read() == '-';
+            }
+            int explicitExponent = 0;
+            while (isDigit(peek())) {
+                explicitExponent = explicitExponent * 10 + (read() - '0');
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (!isTokenEnd(peek())) {
+            throw unexpected("a number");
+        }
+        double value = exponent < 0 ? mantissa / Math.pow(10, -exponent) : mantissa * Math.pow(10, exponent);
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads the next (ASCII) token as a String, meant for keywords and headers rather than data.
+     */
+    public String nextWord() {
+        skipSeparators(true);
+        if (peek() == END_OF_STREAM) {
+            throw unexpected("a word");
+        }
+        StringBuilder word = new StringBuilder();
+        while (!isTokenEnd(peek())) {
+            word.append((char) read());
+        }
+        return word.toString();
+    }
+
+    /**
+     * Skips whole lines, comments included, until a line that starts with the prefix has been skipped.
+     * Meant for descriptions that are delimited by such lines, it must be called at the start of a line.
+     *
+     * @throws IllegalStateException if the end of the stream is reached first
+     */
+    public void skipPastLineStartingWith(String prefix) {
+        while (peek() != END_OF_STREAM) {
+            int matched = 0;
+            while (matched < prefix.length() && peek() == prefix.charAt(matched)) {
+                read();
+                matched++;
+            }
+            skipLine();
+            if (matched == prefix.length()) {
+                return;
+            }
+        }
+        throw new IllegalStateException("Expected a line starting with (" + prefix + ") but reached the end of the instance.");
+    }
+
+    /**
+     * Skips tokens until the given one has been read.
+     *
+     * @throws IllegalStateException if the end of the stream is reached first
+     */
+    public void skipPast(String word) {
+        while (hasNext()) {
+            if (nextWord().equals(word)) {
+                return;
+            }
+        }
+        throw new IllegalStateException("Expected the word (" + word + ") but reached the end of the instance.");
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void skipSeparators(boolean acrossLines) {
+        while (true) {
+            int next = peek();
+            if (next == '#') {
+                if (!acrossLines) {
+                    return;
+                }
+                skipLine();
+            } else if (next == '\n') {
+                if (!acrossLines) {
+                    return;
+                }
+                read();
+            } else if (next == ' ' || next == '\t' || next == '\r' || next == ',' || next == '{' || next == '}') {
+                read();
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads a line {@code instance <name>} from its start up to its line ending.
+     *
+     * @return null if the line isn't one, the rest of the line is then left partly read
+     */
+    private String readInstanceLine() {
+        skipSeparators(false);
+        String keyword = "instance";
+        for (int i = 0; i < keyword.length(); i++) {
+            if (peek() != keyword.charAt(i)) {
+                return null;
+            }
+            read();
+        }
+        if (!isTokenEnd(peek()) || !hasNextOnLine()) {
+            return null;
+        }
+        String name = nextWord();
+        return hasNextOnLine() ? null : name;
+    }
+
+    /**
+     * Reads the rest of the line, without a String for every number.
+     *
+     * @return true if it holds exactly two non-negative integers
+     */
+    private boolean isCountLine() {
+        for (int i = 0; i < 2; i++) {
+            skipSeparators(false);
+            if (!isDigit(peek())) {
+                return false;
+            }
+            while (isDigit(peek())) {
+                read();
+            }
+            if (!isTokenEnd(peek())) {
+                return false;
+            }
+        }
+        return !hasNextOnLine();
+    }
+
+    private long getOffset() {
+        return bufferOffset + position;
+    }
+
+    private static boolean isDigit(int value) {
+        return value >= '0' && value <= '9';
+    }
+
+    private static boolean isTokenEnd(int value) {
+        return value == END_OF_STREAM || value == ' ' || value == '\t' || value == '\r' || value == '\n'
+                || value == ',' || value == '{' || value == '}' || value == '#';
+    }
+
+    private IllegalStateException unexpected(String expected) {
+        int next = peek();
+        String found = next == END_OF_STREAM ? "the end of the instance" : "(" + (char) next + ")";
+        return new IllegalStateException("Expected " + expected + " on line " + lineNumber + " but found " + found + ".");
+    }
+
+    private int peek() {
+        if (position == limit && !fill()) {
+            return END_OF_STREAM;
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    private int read() {
+        int next = peek();
+        if (next != END_OF_STREAM) {
+            position++;
+            if (next == '\n') {
+                lineNumber++;
+            }
+        }
+        return next;
+    }
+
+    private boolean fill() {
+        if (remaining <= 0L) {
+            return false;
+        }
+        try {
+            int read = inputStream.read(buffer, 0, (int) Math.min(BUFFER_SIZE, remaining));
+            if (read <= 0) {
+                return false;
+            }
+            bufferOffset += limit;
+            remaining -= read;
+            position = 0;
+            limit = read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
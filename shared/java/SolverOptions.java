@@ -0,0 +1,341 @@
+//DEPS io.micrometer:micrometer-registry-prometheus:1.13.6
+
+import ai.timefold.solver.core.api.score.Score;
+import ai.timefold.solver.core.api.solver.SolverJob;
+import ai.timefold.solver.core.api.solver.SolverManager;
+import ai.timefold.solver.core.config.constructionheuristic.ConstructionHeuristicPhaseConfig;
+import ai.timefold.solver.core.config.localsearch.LocalSearchPhaseConfig;
+import ai.timefold.solver.core.config.phase.PhaseConfig;
+import ai.timefold.solver.core.config.solver.EnvironmentMode;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.SolverManagerConfig;
+import ai.timefold.solver.core.config.solver.monitoring.MonitoringConfig;
+import ai.timefold.solver.core.config.solver.monitoring.SolverMetric;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * Command line options shared by the JBang solvers: {@code [instance file] [--option=value]... [--flag]...}.
+ * <ul>
+ *     <li>{@code --move-threads=<count|AUTO|NONE>}: evaluate moves on multiple threads within one solver.
+ *     Multi-threaded solving is part of Timefold Solver Enterprise Edition,
+ *     the Community Edition fails fast with an explanation when it's requested.</li>
+ *     <li>{@code --parallel-solvers=<count>}: run that many independent solvers with different random seeds
+ *     on separate threads and keep the best solution (default 1). This works with the Community Edition.</li>
+ *     <li>{@code --seconds=<seconds>}: stop after that wall-clock time.</li>
+ *     <li>{@code --best-score=<score>}: stop as soon as that score (like {@code 0hard/-300soft}) is reached.</li>
+ *     <li>{@code --step-count=<count>}: stop after that number of local search steps,
+ *     or earlier if a local search phase has its own termination.</li>
+ *     <li>{@code --unimproved-seconds=<seconds>}: stop when the best score hasn't improved for that time.</li>
+ *     <li>{@code --metrics-port=<port>}: serve live metrics in the Prometheus text format
+ *     on {@code http://localhost:<port>/metrics} while solving.</li>
+ * </ul>
+ * Without any termination option, the termination of the solver's own config applies.
+ * With several, the solver stops as soon as one of them is met.
+ * A solver can accept its own flags (without a value) and options with a value,
+ * which are passed to {@link #parse(String[], String, String...)}.
+ * Include it in a JBang script with {@code //SOURCES ../../shared/java/SolverOptions.java}.
+ */
+public final class SolverOptions {
+    private Path instanceFile;
+    private String moveThreadCount = SolverConfig.MOVE_THREAD_COUNT_NONE;
+    private int parallelSolverCount = 1;
+    private Long secondsSpentLimit;
+    private String bestScoreLimit;
+    private Integer stepCountLimit;
+    private Long unimprovedSecondsSpentLimit;
+    private Integer metricsPort;
+    private final Set<String> flags = new HashSet<>();
+    private final Map<String, String> optionValues = new HashMap<>();
+
+    private SolverOptions() {
+    }
+
+    /**
+     * @param args the arguments of main
+     * @param defaultInstanceFile the instance to solve when none is passed
+     * @param supportedOptions the flags (like {@code warm-start} for {@code --warm-start})
+     * and the options with a value (like {@code crews=} for {@code --crews=<count>}) the solver supports
+     */
+    public static SolverOptions parse(String[] args, String defaultInstanceFile, String... supportedOptions) {
+        List<String> supported = Arrays.asList(supportedOptions);
+        SolverOptions options = new SolverOptions();
+        options.instanceFile = Path.of(defaultInstanceFile);
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                options.instanceFile = Path.of(arg);
+                continue;
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0 && supported.contains(arg.substring(2))) {
+                options.flags.add(arg.substring(2));
+                continue;
+            }
+            if (separator < 0) {
+                throw new IllegalArgumentException("The option (" + arg + ") must be structured as --option=value.");
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            switch (name) {
+                case "move-threads" -> options.moveThreadCount = value;
+                case "parallel-solvers" -> options.parallelSolverCount = parsePositiveInt(name, value);
+                case "seconds" -> options.secondsSpentLimit = (long) parsePositiveInt(name, value);
+                case "best-score" -> options.bestScoreLimit = value;
+                case "step-count" -> options.stepCountLimit = parsePositiveInt(name, value);
+                case "unimproved-seconds" -> options.unimprovedSecondsSpentLimit = (long) parsePositiveInt(name, value);
+                case "metrics-port" -> options.metricsPort = parsePositiveInt(name, value);
+                default -> {
+                    if (!supported.contains(name + "=")) {
+                        throw new IllegalArgumentException("Unknown option (" + arg + ").");
+                    }
+                    options.optionValues.put(name, value);
+                }
+            }
+        }
+        return options;
+    }
+
+    private static int parsePositiveInt(String name, String value) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("The option (" + name + ") must be a positive number, but was (" + value + ").");
+    }
+
+    public Path getInstanceFile() {
+        return instanceFile;
+    }
+
+    public String getMoveThreadCount() {
+        return moveThreadCount;
+    }
+
+    public int getParallelSolverCount() {
+        return parallelSolverCount;
+    }
+
+    /**
+     * @return null if {@code --seconds} isn't set
+     */
+    public Long getSecondsSpentLimit() {
+        return secondsSpentLimit;
+    }
+
+    /**
+     * For solvers that spend part of {@code --seconds} before Timefold starts.
+     *
+     * @return a copy of these options with another wall-clock limit
+     */
+    public SolverOptions withSecondsSpentLimit(long secondsSpentLimit) {
+        SolverOptions options = new SolverOptions();
+        options.instanceFile = instanceFile;
+        options.moveThreadCount = moveThreadCount;
+        options.parallelSolverCount = parallelSolverCount;
+        options.secondsSpentLimit = secondsSpentLimit;
+        options.bestScoreLimit = bestScoreLimit;
+        options.stepCountLimit = stepCountLimit;
+        options.unimprovedSecondsSpentLimit = unimprovedSecondsSpentLimit;
+        options.metricsPort = metricsPort;
+        options.flags.addAll(flags);
+        options.optionValues.putAll(optionValues);
+        return options;
+    }
+
+    /**
+     * @return null if no termination option is set
+     */
+    public TerminationConfig getTerminationConfig() {
+        if (secondsSpentLimit == null && bestScoreLimit == null && stepCountLimit == null
+                && unimprovedSecondsSpentLimit == null) {
+            return null;
+        }
+        // The step count is a phase termination, see applyTo()
+        return new TerminationConfig()
+                .withSecondsSpentLimit(secondsSpentLimit)
+                .withBestScoreLimit(bestScoreLimit)
+                .withUnimprovedSecondsSpentLimit(unimprovedSecondsSpentLimit);
+    }
+
+    public Integer getMetricsPort() {
+        return metricsPort;
+    }
+
+    public boolean hasFlag(String flag) {
+        return flags.contains(flag);
+    }
+
+    /**
+     * @param name a supported option with a value, without {@code --} and {@code =}
+     * @return the value of the option, or the default if it isn't set
+     */
+    public String getOption(String name, String defaultValue) {
+        return optionValues.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * @param name a supported option with a value, without {@code --} and {@code =}
+     * @return the value of the option, or the default if it isn't set
+     * @throws IllegalArgumentException if the value isn't a positive number
+     */
+    public int getPositiveIntOption(String name, int defaultValue) {
+        String value = optionValues.get(name);
+        return value == null ? defaultValue : parsePositiveInt(name, value);
+    }
+
+    /**
+     * @return a copy of the given config with these options applied
+     */
+    public SolverConfig applyTo(SolverConfig solverConfig) {
+        SolverConfig config = solverConfig.copyConfig()
+                .withMoveThreadCount(moveThreadCount);
+        TerminationConfig terminationConfig = getTerminationConfig();
+        if (terminationConfig != null) {
+            config.setTerminationConfig(terminationConfig);
+        }
+        if (stepCountLimit != null) {
+            // Timefold only counts steps within a phase, so the limit applies to local search
+            limitLocalSearchSteps(config);
+        }
+        if (metricsPort != null) {
+            config.setMonitoringConfig(new MonitoringConfig()
+                    .withSolverMetricList(List.of(SolverMetric.SOLVE_DURATION, SolverMetric.ERROR_COUNT,
+                            SolverMetric.SCORE_CALCULATION_COUNT, SolverMetric.MOVE_EVALUATION_COUNT,
+                            SolverMetric.BEST_SCORE, SolverMetric.STEP_SCORE, SolverMetric.MOVE_COUNT_PER_STEP)));
+        }
+        if (parallelSolverCount > 1) {
+            // Otherwise every parallel solver would use the same random seed and find the same solution
+            config.setEnvironmentMode(EnvironmentMode.NON_REPRODUCIBLE);
+        }
+        return config;
+    }
+
+    /**
+     * Adds the step count limit to every local search phase, or to the default phases if the config has none.
+     * {@link SolverConfig} uses the raw {@link PhaseConfig} type for its phases.
+     */
+    @SuppressWarnings("rawtypes")
+    private void limitLocalSearchSteps(SolverConfig config) {
+        List<PhaseConfig> phaseConfigs = config.getPhaseConfigList() == null
+                ? List.of(new ConstructionHeuristicPhaseConfig(), new LocalSearchPhaseConfig())
+                : config.getPhaseConfigList();
+        for (PhaseConfig phaseConfig : phaseConfigs) {
+            if (phaseConfig instanceof LocalSearchPhaseConfig) {
+                phaseConfig.setTerminationConfig(withStepCountLimit(phaseConfig.getTerminationConfig()));
+            }
+        }
+        config.setPhaseConfigList(phaseConfigs);
+    }
+
+    /**
+     * @return the termination of a phase with the step count limit added, the phase stops as soon as one of them is met
+     */
+    private TerminationConfig withStepCountLimit(TerminationConfig phaseTerminationConfig) {
+        if (phaseTerminationConfig == null) {
+            return new TerminationConfig().withStepCountLimit(stepCountLimit);
+        }
+        TerminationConfig terminationConfig = phaseTerminationConfig.copyConfig();
+        Integer existingLimit = terminationConfig.getStepCountLimit();
+        terminationConfig.setStepCountLimit(existingLimit == null ? stepCountLimit : Math.min(existingLimit, stepCountLimit));
+        return terminationConfig;
+    }
+
+    /**
+     * Solves the problem with {@link #getParallelSolverCount()} independent solvers and returns the best solution.
+     *
+     * @param solverConfig the config of the solver, these options are applied to it
+     * @param problem never modified, every solver works on its own clone
+     * @param scoreFunction returns the score of a solution
+     */
+    public <Solution_, Score_ extends Score<Score_>> Result<Solution_> solve(SolverConfig solverConfig, Solution_ problem,
+            Function<Solution_, Score_> scoreFunction) {
+        SolverConfig config = applyTo(solverConfig);
+        HttpServer metricsServer = metricsPort == null ? null : startMetricsServer(metricsPort);
+        SolverManagerConfig solverManagerConfig = new SolverManagerConfig()
+                .withParallelSolverCount(String.valueOf(parallelSolverCount));
+        try (SolverManager<Solution_, Integer> solverManager = SolverManager.create(config, solverManagerConfig)) {
+            List<SolverJob<Solution_, Integer>> jobs = new ArrayList<>(parallelSolverCount);
+            for (int i = 0; i < parallelSolverCount; i++) {
+                jobs.add(solverManager.solve(i, problem));
+            }
+
+            Solution_ bestSolution = null;
+            long moveEvaluationSpeed = 0L;
+            for (SolverJob<Solution_, Integer> job : jobs) {
+                Solution_ solution = job.getFinalBestSolution();
+                if (bestSolution == null || scoreFunction.apply(solution).compareTo(scoreFunction.apply(bestSolution)) > 0) {
+                    bestSolution = solution;
+                }
+                moveEvaluationSpeed += job.getMoveEvaluationSpeed();
+            }
+            return new Result<>(bestSolution, moveEvaluationSpeed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Solving was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Solving failed.", e.getCause());
+        } finally {
+            if (metricsServer != null) {
+                metricsServer.stop(0);
+            }
+        }
+    }
+
+    /**
+     * Serves the solver metrics (score calculation and move evaluation counts, best and step scores,
+     * accepted and selected moves per step) and the JVM memory metrics in the Prometheus text format.
+     */
+    private static HttpServer startMetricsServer(int port) {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        new JvmMemoryMetrics().bindTo(registry);
+        // The solvers register their metrics in the global registry
+        Metrics.addRegistry(registry);
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+            server.createContext("/metrics", exchange -> {
+                byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream output = exchange.getResponseBody()) {
+                    output.write(body);
+                }
+            });
+            server.start();
+            System.out.println("Metrics on http://localhost:" + port + "/metrics");
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not serve metrics on port " + port + ".", e);
+        }
+    }
+
+    /**
+     * @param bestSolution the best solution of all parallel solvers
+     * @param moveEvaluationSpeed the moves evaluated per second, summed over all parallel solvers
+     */
+    public record Result<Solution_>(Solution_ bestSolution, long moveEvaluationSpeed) {
+    }
+}
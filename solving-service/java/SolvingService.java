@@ -0,0 +1,381 @@
+///usr/bin/env jbang "$0" "$@" ; exit $?
+/// This file requires Jbang to run it.
+//DEPS ai.timefold.solver:timefold-solver-core:1.16.0
+//SOURCES ../../dec-02-road-trip/java/Dec02Roadtrip.java
+//SOURCES ../../dec-03-task-assigning/java/Dec03TaskAssigning.java
+
+import ai.timefold.solver.core.api.solver.SolverJob;
+import ai.timefold.solver.core.api.solver.SolverManager;
+import ai.timefold.solver.core.api.solver.SolverStatus;
+import ai.timefold.solver.core.api.solver.change.ProblemChange;
+import ai.timefold.solver.core.api.solver.change.ProblemChangeDirector;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.SolverManagerConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Long-lived solving service for the road trip and task assigning challenges.
+ * <p>
+ * Every challenge has one {@link SolverManager}, built once at startup,
+ * so the constraints are compiled once and the JIT stays warm across requests.
+ * POST an instance (in the format of its {@code instance.txt}) to {@code /road-trip} or {@code /task-assigning}
+ * and the best solutions are streamed back as server-sent events, until solving terminates.
+ * Closing the connection terminates the solver early.
+ * <p>
+ * Jobs posted to {@code /task-assigning/live} keep solving until the connection is closed,
+ * and accept problem changes meanwhile, see {@link TaskAssigningLiveHandler}.
+ * <p>
+ * Usage: {@code jbang SolvingService.java [port]}, the port defaults to 8080.
+ */
+public class SolvingService {
+
+    private static final AtomicLong JOB_IDS = new AtomicLong();
+
+    public static void main(String... args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext("/road-trip", new SolvingHandler<>(Dec02Roadtrip.createSolverConfig(),
+                SolvingService::readRoadTripPlan, SolvingService::writeRoadTripPlan));
+        server.createContext("/task-assigning", new SolvingHandler<>(Dec03TaskAssigning.createSolverConfig(),
+                SolvingService::readTaskAssigningPlan, SolvingService::writeTaskAssigningPlan));
+        // Daemon solvers don't stop when they stop improving, they wait for problem changes instead
+        server.createContext("/task-assigning/live", new TaskAssigningLiveHandler(new SolvingHandler<>(
+                Dec03TaskAssigning.createSolverConfig().withDaemon(true),
+                SolvingService::readTaskAssigningPlan, SolvingService::writeTaskAssigningPlan)));
+        // Every open stream occupies a thread until its solver terminates
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        System.out.println("Solving service listening on http://localhost:" + port
+                + "/road-trip, /task-assigning and /task-assigning/live");
+    }
+
+    private static Dec02Roadtrip.RoadTripPlan readRoadTripPlan(InputStream body) {
+        // The road trip reads its instance from a file, which also keys the cost matrix cache
+        try {
+            Path instanceFile = Files.createTempFile("road-trip-", ".txt");
+            try {
+                Files.copy(body, instanceFile, StandardCopyOption.REPLACE_EXISTING);
+                return Dec02Roadtrip.createPlanFromInput(instanceFile);
+            } finally {
+                Files.deleteIfExists(instanceFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String writeRoadTripPlan(Dec02Roadtrip.RoadTripPlan plan) {
+        String route = plan.getTraveler().getVisits().stream()
+                .map(visit -> String.valueOf(visit.getId()))
+                .collect(Collectors.joining(","));
+        return "{\"score\":\"" + plan.getScore() + "\",\"route\":[" + route + "]}";
+    }
+
+    private static Dec03TaskAssigning.TaskAssigningPlan readTaskAssigningPlan(InputStream body) {
+        return Dec03TaskAssigning.createPlanFromInput(new InstanceReader(body));
+    }
+
+    private static String writeTaskAssigningPlan(Dec03TaskAssigning.TaskAssigningPlan plan) {
+        String assignments = plan.getTasks().stream()
+                .filter(task -> task.getEmployee() != null)
+                .map(task -> "{\"task\":" + task.getId() + ",\"employee\":" + task.getEmployee().id()
+                        + ",\"cost\":" + task.getCost() + "}")
+                .collect(Collectors.joining(","));
+        return "{\"score\":\"" + plan.getScore() + "\",\"assignments\":[" + assignments + "]}";
+    }
+
+    /**
+     * Solves the posted instance and streams every new best solution as a {@code best-solution} event,
+     * followed by a single {@code final-best-solution} or {@code error} event.
+     * Without events, a keep-alive comment is written now and then, so a closed connection is noticed
+     * even while a daemon solver waits for problem changes.
+     */
+    static final class SolvingHandler<Solution_> implements HttpHandler {
+
+        private static final String END_OF_STREAM = "";
+        private static final String KEEP_ALIVE = ": keep-alive\n\n";
+        private static final long KEEP_ALIVE_SECONDS = 15L;
+
+        private final SolverManager<Solution_, Long> solverManager;
+        private final Function<InputStream, Solution_> reader;
+        private final Function<Solution_, String> writer;
+
+        SolvingHandler(SolverConfig solverConfig, Function<InputStream, Solution_> reader,
+                Function<Solution_, String> writer) {
+            this.solverManager = SolverManager.create(solverConfig, new SolverManagerConfig()
+                    .withParallelSolverCount(SolverManagerConfig.PARALLEL_SOLVER_COUNT_AUTO));
+            this.reader = reader;
+            this.writer = writer;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try (exchange) {
+                if (!exchange.getRequestMethod().equals("POST")) {
+                    respond(exchange, 405, "Only POST is supported, with an instance as body.");
+                    return;
+                }
+                Solution_ problem;
+                try (InputStream body = exchange.getRequestBody()) {
+                    problem = reader.apply(body);
+                } catch (RuntimeException e) {
+                    respond(exchange, 400, "Invalid instance: " + e.getMessage());
+                    return;
+                }
+                stream(exchange, problem);
+            }
+        }
+
+        private void stream(HttpExchange exchange, Solution_ problem) throws IOException {
+            long jobId = JOB_IDS.incrementAndGet();
+            BlockingQueue<String> events = new LinkedBlockingQueue<>();
+            SolverJob<Solution_, Long> solverJob = solverManager.solveBuilder()
+                    .withProblemId(jobId)
+                    .withProblem(problem)
+                    .withBestSolutionConsumer(solution -> events.add(event("best-solution", writer.apply(solution))))
+                    .withFinalBestSolutionConsumer(solution -> {
+                        events.add(event("final-best-solution", writer.apply(solution)));
+                        events.add(END_OF_STREAM);
+                    })
+                    .withExceptionHandler((id, throwable) -> {
+                        events.add(event("error", jsonString(String.valueOf(throwable.getMessage()))));
+                        events.add(END_OF_STREAM);
+                    })
+                    .run();
+
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.getResponseHeaders().set("X-Job-Id", String.valueOf(jobId));
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream output = exchange.getResponseBody();
+            try {
+                String event;
+                while (!END_OF_STREAM.equals(event = events.poll(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS))) {
+                    output.write((event == null ? KEEP_ALIVE : event).getBytes(StandardCharsets.UTF_8));
+                    output.flush();
+                }
+            } catch (IOException e) {
+                // The client went away, so nobody is interested in better solutions anymore
+                solverManager.terminateEarly(solverJob.getProblemId());
+            } catch (InterruptedException e) {
+                solverManager.terminateEarly(solverJob.getProblemId());
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        SolverManager<Solution_, Long> getSolverManager() {
+            return solverManager;
+        }
+
+        private static String event(String name, String data) {
+            return "event: " + name + "\ndata: " + data + "\n\n";
+        }
+
+        /**
+         * @return the text as a JSON string, without line breaks, which would end the {@code data:} line of an event
+         */
+        private static String jsonString(String text) {
+            StringBuilder json = new StringBuilder(text.length() + 2).append('"');
+            for (char c : text.toCharArray()) {
+                switch (c) {
+                    case '"' -> json.append("\\\"");
+                    case '\\' -> json.append("\\\\");
+                    case '\n' -> json.append("\\n");
+                    case '\r' -> json.append("\\r");
+                    case '\t' -> json.append("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            json.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            json.append(c);
+                        }
+                    }
+                }
+            }
+            return json.append('"').toString();
+        }
+
+        static void respond(HttpExchange exchange, int status, String message) throws IOException {
+            byte[] body = message.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    /**
+     * {@code POST /task-assigning/live} starts a daemon job, which streams like {@link SolvingHandler}.
+     * While it runs, problem changes are posted to {@code /task-assigning/live/<job id>/...}:
+     * <ul>
+     *     <li>{@code POST tasks}: adds a task, the body has its cost per employee id. Responds with its task id.</li>
+     *     <li>{@code DELETE tasks/<task id>}: removes a task.</li>
+     *     <li>{@code POST tasks/<task id>/pin}: pins a started task to its current employee.</li>
+     *     <li>{@code POST employees}: adds an employee, the body has its cost per task id. Responds with its employee id.</li>
+     *     <li>{@code DELETE employees/<employee id>}: removes an employee, its tasks are reassigned.</li>
+     * </ul>
+     * Every change is validated by the solver, against its working solution, see {@link RejectableChange}.
+     * A rejected change responds 400 and the job continues.
+     */
+    static final class TaskAssigningLiveHandler implements HttpHandler {
+
+        private static final String PATH = "/task-assigning/live";
+
+        private final SolvingHandler<Dec03TaskAssigning.TaskAssigningPlan> solvingHandler;
+
+        TaskAssigningLiveHandler(SolvingHandler<Dec03TaskAssigning.TaskAssigningPlan> solvingHandler) {
+            this.solvingHandler = solvingHandler;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals(PATH) || path.equals(PATH + "/")) {
+                solvingHandler.handle(exchange);
+                return;
+            }
+            try (exchange) {
+                String[] segments = path.substring(PATH.length() + 1).split("/");
+                long jobId;
+                try {
+                    jobId = Long.parseLong(segments[0]);
+                } catch (NumberFormatException e) {
+                    SolvingHandler.respond(exchange, 404, "Unknown job (" + segments[0] + ").");
+                    return;
+                }
+                if (solvingHandler.getSolverManager().getSolverStatus(jobId) == SolverStatus.NOT_SOLVING) {
+                    SolvingHandler.respond(exchange, 404, "The job (" + jobId + ") isn't solving.");
+                    return;
+                }
+                try {
+                    String result = change(exchange, jobId, Arrays.copyOfRange(segments, 1, segments.length));
+                    if (result == null) {
+                        SolvingHandler.respond(exchange, 404, "Unknown change (" + exchange.getRequestMethod() + " "
+                                + path + ").");
+                    } else {
+                        SolvingHandler.respond(exchange, 200, result);
+                    }
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    SolvingHandler.respond(exchange, 400, e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * @return the response, or null if the path isn't a known change
+         */
+        private String change(HttpExchange exchange, long jobId, String[] segments) throws IOException {
+            String method = exchange.getRequestMethod();
+            if (segments.length == 1 && segments[0].equals("tasks") && method.equals("POST")) {
+                var change = new Dec03TaskAssigning.AddTaskChange(readCosts(exchange));
+                apply(jobId, change);
+                return String.valueOf(change.getTaskId());
+            } else if (segments.length == 2 && segments[0].equals("tasks") && method.equals("DELETE")) {
+                int taskId = parseId(segments[1]);
+                apply(jobId, new Dec03TaskAssigning.RemoveTaskChange(taskId));
+                return "Removed task " + taskId + ".";
+            } else if (segments.length == 3 && segments[0].equals("tasks") && segments[2].equals("pin")
+                    && method.equals("POST")) {
+                int taskId = parseId(segments[1]);
+                apply(jobId, new Dec03TaskAssigning.PinTaskChange(taskId));
+                return "Pinned task " + taskId + ".";
+            } else if (segments.length == 1 && segments[0].equals("employees") && method.equals("POST")) {
+                var change = new Dec03TaskAssigning.AddEmployeeChange(readCosts(exchange));
+                apply(jobId, change);
+                return String.valueOf(change.getEmployeeId());
+            } else if (segments.length == 2 && segments[0].equals("employees") && method.equals("DELETE")) {
+                int employeeId = parseId(segments[1]);
+                apply(jobId, new Dec03TaskAssigning.RemoveEmployeeChange(employeeId));
+                return "Removed employee " + employeeId + ".";
+            }
+            return null;
+        }
+
+        private void apply(long jobId, ProblemChange<Dec03TaskAssigning.TaskAssigningPlan> change) {
+            var rejectableChange = new RejectableChange(change);
+            try {
+                solvingHandler.getSolverManager().addProblemChange(jobId, rejectableChange).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while applying the change.", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("The change failed: " + e.getCause().getMessage(), e.getCause());
+            }
+            if (rejectableChange.getRejection() != null) {
+                throw new IllegalArgumentException(rejectableChange.getRejection());
+            }
+        }
+
+        private static int[] readCosts(HttpExchange exchange) throws IOException {
+            // The change checks the number of costs, against the tasks and employees the solver has by then
+            IntStream.Builder costs = IntStream.builder();
+            try (InstanceReader reader = new InstanceReader(exchange.getRequestBody())) {
+                while (reader.hasNext()) {
+                    costs.add(reader.nextInt());
+                }
+            }
+            return costs.build().toArray();
+        }
+
+        private static int parseId(String id) {
+            try {
+                return Integer.parseInt(id);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid id (" + id + ").");
+            }
+        }
+    }
+
+    /**
+     * Runs a change on the working solution of the solver and keeps its validation error, if any,
+     * instead of failing the solver, which would end the job.
+     * The changes of {@link Dec03TaskAssigning} check their ids and costs before they change anything,
+     * so a rejected change leaves the working solution as it was.
+     */
+    static final class RejectableChange implements ProblemChange<Dec03TaskAssigning.TaskAssigningPlan> {
+        private final ProblemChange<Dec03TaskAssigning.TaskAssigningPlan> change;
+        private volatile String rejection;
+
+        RejectableChange(ProblemChange<Dec03TaskAssigning.TaskAssigningPlan> change) {
+            this.change = change;
+        }
+
+        @Override
+        public void doChange(Dec03TaskAssigning.TaskAssigningPlan workingSolution,
+                ProblemChangeDirector problemChangeDirector) {
+            try {
+                change.doChange(workingSolution, problemChangeDirector);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                rejection = e.getMessage();
+            }
+        }
+
+        /**
+         * @return null if the change has been applied, or hasn't run yet
+         */
+        String getRejection() {
+            return rejection;
+        }
+    }
+}